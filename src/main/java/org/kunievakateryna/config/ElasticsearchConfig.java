@@ -1,6 +1,9 @@
 package org.kunievakateryna.config;
 
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.transport.ElasticsearchTransport;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.elasticsearch.client.ClientConfiguration;
 import org.springframework.data.elasticsearch.client.elc.ElasticsearchConfiguration;
@@ -25,4 +28,15 @@ public class ElasticsearchConfig extends ElasticsearchConfiguration {
                 .connectedTo(esAddress)
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Non-blocking client sharing the transport, and therefore the connection pool, of the blocking client
+     *
+     * @param transport transport created by ElasticsearchConfiguration
+     * @return ElasticsearchAsyncClient instance
+     */
+    @Bean
+    public ElasticsearchAsyncClient elasticsearchAsyncClient(ElasticsearchTransport transport) {
+        return new ElasticsearchAsyncClient(transport);
+    }
+}
@@ -0,0 +1,39 @@
+package org.kunievakateryna.data;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.DateFormat;
+import org.springframework.data.elasticsearch.annotations.Document;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Compressed email body stored out of line.
+ * The id is the SHA-256 hash of the body, so identical bodies are stored once.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(indexName = "email_body")
+public class EmailBody {
+
+    @Id
+    private String id;
+
+    /** Base64 encoded GZIP of the UTF-8 body, not indexed */
+    @Field(type = FieldType.Binary)
+    private String data;
+
+    /** Size of the uncompressed body in UTF-8 bytes */
+    @Field(type = FieldType.Integer, index = false)
+    private int size;
+
+    @Field(type = FieldType.Date, format = DateFormat.date_hour_minute_second_millis)
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS")
+    private LocalDateTime createdAt;
+}
@@ -30,6 +30,10 @@ public class EmailHistory {
     @Field(type = FieldType.Text)
     private String content;
 
+    /** Hash of the archived body, set instead of content when the body is stored out of line */
+    @Field(type = FieldType.Keyword)
+    private String contentHash;
+
     @Field(type = FieldType.Keyword)
     private EmailStatus status;
 
@@ -46,4 +50,8 @@ public class EmailHistory {
     @Field(type = FieldType.Date, format = DateFormat.date_hour_minute_second_millis)
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS")
     private LocalDateTime lastAttemptTime;
+
+    @Field(type = FieldType.Date, format = DateFormat.date_hour_minute_second_millis)
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS")
+    private LocalDateTime sendAt;
 }
\ No newline at end of file
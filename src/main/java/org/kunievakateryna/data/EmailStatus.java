@@ -1,7 +1,9 @@
 package org.kunievakateryna.data;
 
 public enum EmailStatus {
+    SCHEDULED,
     PENDING,
     SENT,
-    ERROR
+    ERROR,
+    SUPPRESSED
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package org.kunievakateryna.data;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.DateFormat;
+import org.springframework.data.elasticsearch.annotations.Document;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Recipient address that must not receive emails.
+ * The id is the normalized address, so each recipient is stored at most once.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(indexName = "email_suppression")
+public class SuppressedRecipient {
+
+    @Id
+    private String id;
+
+    @Field(type = FieldType.Keyword)
+    private SuppressionReason reason;
+
+    @Field(type = FieldType.Date, format = DateFormat.date_hour_minute_second_millis)
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS")
+    private LocalDateTime createdAt;
+}
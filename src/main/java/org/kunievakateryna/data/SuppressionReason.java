@@ -0,0 +1,7 @@
+package org.kunievakateryna.data;
+
+public enum SuppressionReason {
+    HARD_BOUNCE,
+    UNSUBSCRIBED,
+    COMPLAINT
+}
@@ -4,6 +4,7 @@ import lombok.*;
 import lombok.extern.jackson.Jacksonized;
 
 import java.io.Serializable;
+import java.time.LocalDateTime;
 
 @Getter
 @Builder
@@ -14,4 +15,11 @@ public class EmailMessageDto implements Serializable {
     private String recipient;
     private String subject;
     private String body;
-}
\ No newline at end of file
+
+    /** Time to deliver the email at, sent immediately if null or in the past */
+    private LocalDateTime sendAt;
+
+    public EmailMessageDto(String recipient, String subject, String body) {
+        this(recipient, subject, body, null);
+    }
+}
@@ -0,0 +1,141 @@
+package org.kunievakateryna.lifecycle;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.kunievakateryna.data.EmailHistory;
+import org.springframework.amqp.rabbit.listener.AbstractMessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Controls when the RabbitMQ listener containers consume messages.
+ * On startup warms up Elasticsearch and SMTP connections before consuming begins,
+ * on shutdown stops consuming and drains in-flight sends and status writes within a deadline.
+ * Messages are acknowledged when their history writes complete, so in-flight work is drained
+ * before the containers are stopped: stopping them closes the channels the acks are sent on.
+ * Listener containers must be configured with auto-startup disabled, this class starts them.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConsumerLifecycleManager implements SmartLifecycle {
+
+    private final RabbitListenerEndpointRegistry listenerRegistry;
+    private final ElasticsearchOperations operations;
+    private final JavaMailSender mailSender;
+    private final InFlightTracker inFlightTracker;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.lifecycle.drain-timeout:30s}")
+    private Duration drainTimeout;
+
+    private volatile boolean running;
+
+    /**
+     * Warms up connections and then starts the listener containers
+     */
+    @Override
+    public void start() {
+        long startNanos = System.nanoTime();
+        warmUpElasticsearch();
+        warmUpSmtp();
+        Duration warmUp = Duration.ofNanos(System.nanoTime() - startNanos);
+
+        meterRegistry.timer("email.consumer.warmup").record(warmUp);
+        log.info("Connections warmed up in {} ms, starting listener containers", warmUp.toMillis());
+
+        for (MessageListenerContainer container : listenerRegistry.getListenerContainers()) {
+            container.start();
+        }
+        running = true;
+    }
+
+    /**
+     * Stops taking new work, waits for in-flight work to finish while the channels are still open,
+     * and then stops the listener containers within what is left of the deadline
+     */
+    @Override
+    public void stop() {
+        long startNanos = System.nanoTime();
+        inFlightTracker.startDraining();
+
+        log.info("Draining consumers, {} operations in flight", inFlightTracker.getInFlight());
+        boolean drained = awaitDrained(drainTimeout);
+
+        Duration remaining = drainTimeout.minusNanos(System.nanoTime() - startNanos);
+        for (MessageListenerContainer container : listenerRegistry.getListenerContainers()) {
+            if (container instanceof AbstractMessageListenerContainer listenerContainer) {
+                listenerContainer.setShutdownTimeout(Math.max(remaining.toMillis(), 0));
+            }
+            container.stop();
+        }
+        Duration drain = Duration.ofNanos(System.nanoTime() - startNanos);
+
+        meterRegistry.timer("email.consumer.drain").record(drain);
+        if (drained) {
+            log.info("Consumer drained in {} ms", drain.toMillis());
+        } else {
+            log.warn(
+                    "Consumer drain timed out after {} ms, {} operations still in flight",
+                    drain.toMillis(),
+                    inFlightTracker.getInFlight()
+            );
+        }
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Performs a round trip to Elasticsearch so the client connection pool is established
+     */
+    private void warmUpElasticsearch() {
+        try {
+            operations.indexOps(EmailHistory.class).exists();
+        } catch (Exception e) {
+            log.warn("Elasticsearch warm-up failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Opens and closes an SMTP connection so DNS resolution and handshake are done before the first send
+     */
+    private void warmUpSmtp() {
+        if (!(mailSender instanceof JavaMailSenderImpl javaMailSender)) {
+            return;
+        }
+
+        try {
+            javaMailSender.testConnection();
+        } catch (Exception e) {
+            log.warn("SMTP warm-up failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Waits for in-flight work, treating interruption as a failed drain
+     *
+     * @param timeout maximum time to wait
+     * @return true if all work finished in time
+     */
+    private boolean awaitDrained(Duration timeout) {
+        try {
+            return inFlightTracker.awaitDrained(timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.kunievakateryna.lifecycle;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks email sends and status writes that are currently in progress,
+ * so that shutdown can wait for them instead of interrupting them
+ */
+@Component
+public class InFlightTracker {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Object monitor = new Object();
+    private volatile boolean draining;
+
+    /**
+     * Registers the start of a unit of work
+     */
+    public void begin() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * Registers the end of a unit of work started with {@link #begin()}
+     */
+    public void end() {
+        if (inFlight.decrementAndGet() == 0) {
+            synchronized (monitor) {
+                monitor.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * @return number of units of work currently in progress
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Marks the application as draining, background jobs should not start new work after this
+     */
+    public void startDraining() {
+        draining = true;
+    }
+
+    /**
+     * @return true if shutdown has started and no new work should be taken
+     */
+    public boolean isDraining() {
+        return draining;
+    }
+
+    /**
+     * Waits until all in-flight work has finished or the timeout elapses
+     *
+     * @param timeout maximum time to wait
+     * @return true if everything finished in time
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    public boolean awaitDrained(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+
+        synchronized (monitor) {
+            while (inFlight.get() > 0) {
+                long remainingMillis = (deadline - System.nanoTime()) / 1_000_000;
+                if (remainingMillis <= 0) {
+                    return false;
+                }
+                monitor.wait(remainingMillis);
+            }
+        }
+        return true;
+    }
+}
@@ -5,64 +5,156 @@ import lombok.extern.slf4j.Slf4j;
 import org.kunievakateryna.data.EmailHistory;
 import org.kunievakateryna.data.EmailStatus;
 import org.kunievakateryna.dto.EmailMessageDto;
-import org.kunievakateryna.repository.EmailHistoryRepository;
+import org.kunievakateryna.lifecycle.InFlightTracker;
+import org.kunievakateryna.repository.EmailHistoryWriter;
+import org.kunievakateryna.service.EmailContentStore;
 import org.kunievakateryna.service.EmailService;
+import org.kunievakateryna.service.RecipientSuppressionService;
+import org.kunievakateryna.service.ScheduledEmailDispatcher;
+import org.springframework.amqp.ImmediateRequeueAmqpException;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
- * Listener that processes incoming email messages from RabbitMQ
+ * Listener that processes incoming email messages from RabbitMQ.
+ * History writes are asynchronous: the consumer thread only sends the email, and the message
+ * is acknowledged when the returned future completes, i.e. when Elasticsearch confirmed the writes.
+ * A failed write leads to a requeue only while the email has not been sent; once it has been sent,
+ * the failure is logged and the message is still acknowledged, so a redelivery never sends it twice.
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class EmailMessageListener {
 
-    private final EmailHistoryRepository repository;
+    private final EmailHistoryWriter historyWriter;
     private final EmailService emailService;
+    private final InFlightTracker inFlightTracker;
+    private final RecipientSuppressionService suppressionService;
+    private final EmailContentStore contentStore;
+    private final ScheduledEmailDispatcher scheduledEmailDispatcher;
 
     /**
      * Entry point for messages received from RabbitMQ.
      * Creates email history, sends the email, and updates the status.
+     * Emails to suppressed recipients are recorded with SUPPRESSED status and not sent,
+     * emails with a future send time are recorded with SCHEDULED status and sent later.
      *
      * @param messageDto email data received from the queue
+     * @return future completed when all history writes are done, the message is acked on completion
      */
     @RabbitListener(queues = "${app.rabbitmq.email-queue}")
-    public void receiveMessage(EmailMessageDto messageDto) {
-        EmailHistory history = createPendingHistory(messageDto);
-        repository.save(history);
+    public CompletableFuture<Void> receiveMessage(EmailMessageDto messageDto) {
+        inFlightTracker.begin();
+        if (inFlightTracker.isDraining()) {
+            inFlightTracker.end();
+            return requeue();
+        }
+
+        CompletableFuture<Void> processed;
+        try {
+            processed = processMessage(messageDto);
+        } catch (RuntimeException e) {
+            processed = CompletableFuture.failedFuture(e);
+        }
+        return processed.whenComplete((result, error) -> inFlightTracker.end());
+    }
 
-        log.info("Created history record in DB with status PENDING, ID: {}", history.getId());
+    /**
+     * Returns a message delivered after shutdown started to the queue without processing it.
+     * With a future return type acks are manual, so the message is nacked with requeue when the returned future fails;
+     * the consumer thread is not blocked and its channel stays open for the acks of in-flight messages.
+     * Work is registered as in flight before the draining check, so shutdown either waits for it or it is requeued.
+     *
+     * @return failed future
+     */
+    private static CompletableFuture<Void> requeue() {
+        return CompletableFuture.failedFuture(
+                new ImmediateRequeueAmqpException("Consumer is shutting down, message returned to the queue"));
+    }
+
+    /**
+     * Creates email history, sends the email, and updates the status.
+     * The body archive and history record are written while the email is being sent.
+     *
+     * @param messageDto email data received from the queue
+     * @return future completed when all history writes are done
+     */
+    private CompletableFuture<Void> processMessage(EmailMessageDto messageDto) {
+        if (suppressionService.isSuppressed(messageDto.getRecipient())) {
+            return saveSuppressedHistory(messageDto);
+        }
+        if (scheduledEmailDispatcher.isDeferred(messageDto.getSendAt())) {
+            return saveScheduledHistory(messageDto);
+        }
+
+        EmailHistory history = createHistory(messageDto, EmailStatus.PENDING);
+        CompletableFuture<Void> archived = contentStore.store(history, messageDto.getBody());
+        CompletableFuture<Void> created = historyWriter.saveAfter(archived, history);
+
+        log.info("Creating history record in DB with status PENDING, ID: {}", history.getId());
 
         try {
             sendEmail(messageDto);
-            markAsSent(history);
+            return markAsSent(created, history);
         } catch (Exception e) {
-            markAsError(history, e);
+            return markAsError(created, history, e);
         }
     }
 
     /**
-     * Creates a new email history record with PENDING status
+     * Creates a new email history record without body
      *
      * @param messageDto email message data
+     * @param status     initial status
      * @return initialized EmailHistory entity
      */
-    private EmailHistory createPendingHistory(EmailMessageDto messageDto) {
+    private EmailHistory createHistory(EmailMessageDto messageDto, EmailStatus status) {
         return EmailHistory.builder()
                 .id(UUID.randomUUID().toString())
                 .recipient(messageDto.getRecipient())
                 .subject(messageDto.getSubject())
-                .content(messageDto.getBody())
-                .status(EmailStatus.PENDING)
+                .status(status)
                 .attempts(0)
                 .createdAt(LocalDateTime.now())
                 .build();
     }
 
+    /**
+     * Records an email to a suppressed recipient without sending it.
+     * The body is kept inline, it is never sent, so it is not worth an archive round trip.
+     *
+     * @param messageDto email message data
+     * @return future completed when the record is written
+     */
+    private CompletableFuture<Void> saveSuppressedHistory(EmailMessageDto messageDto) {
+        EmailHistory history = createHistory(messageDto, EmailStatus.SUPPRESSED);
+        history.setContent(messageDto.getBody());
+
+        log.info("Recipient {} is suppressed, email was not sent, ID: {}", history.getRecipient(), history.getId());
+        return historyWriter.save(history);
+    }
+
+    /**
+     * Records an email with a future send time and hands it over to the dispatcher once it is persisted
+     *
+     * @param messageDto email message data
+     * @return future completed when the record is written
+     */
+    private CompletableFuture<Void> saveScheduledHistory(EmailMessageDto messageDto) {
+        EmailHistory history = createHistory(messageDto, EmailStatus.SCHEDULED);
+        history.setSendAt(messageDto.getSendAt());
+        CompletableFuture<Void> archived = contentStore.store(history, messageDto.getBody());
+
+        log.info("Email to {} scheduled at {}, ID: {}", history.getRecipient(), history.getSendAt(), history.getId());
+        return historyWriter.saveAfter(archived, history)
+                .thenRun(() -> scheduledEmailDispatcher.schedule(history));
+    }
+
     /**
      * Sends an email using the email service
      *
@@ -79,34 +171,49 @@ public class EmailMessageListener {
     /**
      * Updates email history after successful sending
      *
+     * @param created future of the write that created the record
      * @param history email history entity
+     * @return future completed when the status is written or its failure is logged, never failed
      */
-    private void markAsSent(EmailHistory history) {
+    private CompletableFuture<Void> markAsSent(CompletableFuture<Void> created, EmailHistory history) {
         history.setStatus(EmailStatus.SENT);
         history.setLastAttemptTime(LocalDateTime.now());
         history.setAttempts(1);
-        repository.save(history);
 
         log.info("Email successfully sent to: {}", history.getRecipient());
+        return historyWriter.saveAttempt(created, history, EmailStatus.PENDING)
+                .exceptionally(error -> {
+                    log.error(
+                            "Email ID: {} was sent to {} but its history could not be written, "
+                                    + "message is acknowledged so the email is not sent again. Error: {}",
+                            history.getId(),
+                            history.getRecipient(),
+                            error.getMessage()
+                    );
+                    return null;
+                });
     }
 
     /**
-     * Updates email history after a sending error
+     * Updates email history after a sending error, a recipient rejected permanently is suppressed
      *
+     * @param created   future of the write that created the record
      * @param history   email history entity
      * @param exception exception that occurred during sending
+     * @return future completed when the status is written
      */
-    private void markAsError(EmailHistory history, Exception exception) {
+    private CompletableFuture<Void> markAsError(CompletableFuture<Void> created, EmailHistory history, Exception exception) {
         history.setStatus(EmailStatus.ERROR);
         history.setErrorMessage(exception.getClass().getSimpleName() + ": " + exception.getMessage());
         history.setLastAttemptTime(LocalDateTime.now());
         history.setAttempts(1);
-        repository.save(history);
 
         log.error(
                 "Failed to send email to {}. Error: {}",
                 history.getRecipient(),
                 exception.getMessage()
         );
+        suppressionService.suppressOnPermanentFailure(history.getRecipient(), exception);
+        return historyWriter.saveAttempt(created, history, EmailStatus.PENDING);
     }
 }
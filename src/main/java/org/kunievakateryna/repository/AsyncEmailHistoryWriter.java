@@ -0,0 +1,211 @@
+package org.kunievakateryna.repository;
+
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.elasticsearch._types.Refresh;
+import co.elastic.clients.elasticsearch._types.Result;
+import co.elastic.clients.json.JsonData;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.kunievakateryna.data.EmailHistory;
+import org.kunievakateryna.data.EmailStatus;
+import org.kunievakateryna.util.NamedThreadFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.elasticsearch.core.AbstractElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.RefreshPolicy;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking writer of EmailHistory documents based on the async Elasticsearch client.
+ * Documents are mapped with the same converter as the repository, so they are stored identically.
+ * The number of requests in flight is bounded: when the limit is reached the calling thread waits
+ * for a permit, which applies back pressure to the RabbitMQ consumers instead of queueing without limit.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.elasticsearch.async.enabled", havingValue = "true", matchIfMissing = true)
+public class AsyncEmailHistoryWriter implements EmailHistoryWriter {
+
+    /** Max time to wait for queued continuation writes on shutdown */
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+
+    private final ElasticsearchAsyncClient asyncClient;
+    private final ElasticsearchOperations operations;
+
+    @Value("${app.elasticsearch.async.max-in-flight:64}")
+    private int maxInFlight;
+
+    @Value("${app.elasticsearch.async.continuation-threads:4}")
+    private int continuationThreads;
+
+    private Semaphore permits;
+    private String indexName;
+
+    /**
+     * Runs writes that depend on a previous write, so waiting for a permit never blocks a client I/O thread.
+     * The queue is not bounded: every waiting write belongs to an unacknowledged message,
+     * so its length is already limited by the consumer prefetch.
+     */
+    private ThreadPoolExecutor continuationExecutor;
+
+    /**
+     * Allocates the in-flight permits and continuation workers and resolves the index name
+     */
+    @PostConstruct
+    public void init() {
+        permits = new Semaphore(maxInFlight);
+        indexName = operations.getIndexCoordinatesFor(EmailHistory.class).getIndexName();
+        continuationExecutor = new ThreadPoolExecutor(
+                continuationThreads,
+                continuationThreads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                new NamedThreadFactory("email-history-")
+        );
+    }
+
+    /**
+     * Stops accepting continuation writes on shutdown and waits for the queued ones
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        continuationExecutor.shutdown();
+        if (!continuationExecutor.awaitTermination(SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+            log.warn("History writes did not finish within {}", SHUTDOWN_TIMEOUT);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> save(EmailHistory history) {
+        return index(history.getId(), operations.getElasticsearchConverter().mapObject(history));
+    }
+
+    @Override
+    public CompletableFuture<Void> saveAfter(CompletableFuture<Void> previous, EmailHistory history) {
+        Document document = operations.getElasticsearchConverter().mapObject(history);
+        if (previous.isDone() && !previous.isCompletedExceptionally()) {
+            return index(history.getId(), document);
+        }
+
+        return previous.thenComposeAsync(result -> index(history.getId(), document), continuationExecutor);
+    }
+
+    @Override
+    public CompletableFuture<Void> saveAttempt(
+            CompletableFuture<Void> created,
+            EmailHistory history,
+            EmailStatus expected
+    ) {
+        return created.thenComposeAsync(result -> recordAttempt(history, expected), continuationExecutor);
+    }
+
+    /**
+     * Indexes a mapped document
+     *
+     * @param id       document id
+     * @param document mapped document
+     * @return future completed when Elasticsearch acknowledged the write
+     */
+    private CompletableFuture<Void> index(String id, Document document) {
+        return execute(() -> asyncClient.index(i -> i
+                        .index(indexName)
+                        .id(id)
+                        .document(document)
+                        .refresh(refresh()))
+                .thenApply(response -> null));
+    }
+
+    /**
+     * Runs the record attempt script: transitions the status with precondition, increments attempts,
+     * sets the last attempt time and sets or clears the error message
+     *
+     * @param history  email history record with the attempt outcome set
+     * @param expected the status the stored record must currently have
+     * @return future completed when Elasticsearch acknowledged the write
+     */
+    private CompletableFuture<Void> recordAttempt(EmailHistory history, EmailStatus expected) {
+        LocalDateTime attemptTime = history.getLastAttemptTime() == null
+                ? LocalDateTime.now()
+                : history.getLastAttemptTime();
+
+        Map<String, JsonData> params = new HashMap<>();
+        params.put("expected", JsonData.of(expected.name()));
+        params.put("target", JsonData.of(history.getStatus().name()));
+        params.put("now", JsonData.of(attemptTime.format(EmailHistoryUpdateRepositoryImpl.DATE_FORMATTER)));
+        if (history.getErrorMessage() != null) {
+            params.put("errorMessage", JsonData.of(history.getErrorMessage()));
+        }
+
+        return execute(() -> asyncClient.update(u -> u
+                                .index(indexName)
+                                .id(history.getId())
+                                .script(script -> script
+                                        .source(EmailHistoryUpdateRepositoryImpl.RECORD_ATTEMPT_SCRIPT)
+                                        .lang("painless")
+                                        .params(params))
+                                .retryOnConflict(EmailHistoryUpdateRepositoryImpl.RETRY_ON_CONFLICT)
+                                .refresh(refresh()),
+                        Object.class)
+                .thenApply(response -> {
+                    if (response.result() == Result.NoOp) {
+                        log.warn("Email ID: {} is no longer in {} status, attempt was not recorded", history.getId(), expected);
+                    }
+                    return null;
+                }));
+    }
+
+    /**
+     * Starts a request once a permit is available and releases the permit on completion
+     *
+     * @param request supplier starting the request
+     * @return future of the request
+     */
+    private CompletableFuture<Void> execute(Supplier<CompletableFuture<Void>> request) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<Void> future;
+        try {
+            future = request.get();
+        } catch (RuntimeException e) {
+            permits.release();
+            return CompletableFuture.failedFuture(e);
+        }
+        return future.whenComplete((result, error) -> permits.release());
+    }
+
+    /**
+     * Maps the configured refresh policy the same way the repository does:
+     * without a policy the index is refreshed after each write
+     */
+    private Refresh refresh() {
+        RefreshPolicy policy = operations instanceof AbstractElasticsearchTemplate template
+                ? template.getRefreshPolicy()
+                : null;
+        if (policy == null || policy == RefreshPolicy.IMMEDIATE) {
+            return Refresh.True;
+        }
+        return policy == RefreshPolicy.WAIT_UNTIL ? Refresh.WaitFor : Refresh.False;
+    }
+}
@@ -0,0 +1,77 @@
+package org.kunievakateryna.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.kunievakateryna.data.EmailHistory;
+import org.kunievakateryna.data.EmailStatus;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Writer of EmailHistory documents that calls the blocking repository on the calling thread,
+ * so the RabbitMQ consumer waits for every write. Returned futures are already completed.
+ * Enabled with app.elasticsearch.async.enabled=false, the load test uses it as the baseline for the async writer.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.elasticsearch.async.enabled", havingValue = "false")
+public class BlockingEmailHistoryWriter implements EmailHistoryWriter {
+
+    private final EmailHistoryRepository repository;
+
+    @Override
+    public CompletableFuture<Void> save(EmailHistory history) {
+        return run(() -> repository.save(history));
+    }
+
+    @Override
+    public CompletableFuture<Void> saveAfter(CompletableFuture<Void> previous, EmailHistory history) {
+        Throwable error = previous.handle((result, e) -> e).join();
+        if (error != null) {
+            return CompletableFuture.failedFuture(error);
+        }
+        return save(history);
+    }
+
+    @Override
+    public CompletableFuture<Void> saveAttempt(
+            CompletableFuture<Void> created,
+            EmailHistory history,
+            EmailStatus expected
+    ) {
+        Throwable error = created.handle((result, e) -> e).join();
+        if (error != null) {
+            return CompletableFuture.failedFuture(error);
+        }
+
+        return run(() -> {
+            boolean updated = repository.recordAttempt(
+                    history.getId(),
+                    expected,
+                    history.getStatus(),
+                    history.getErrorMessage()
+            );
+            if (!updated) {
+                log.warn("Email ID: {} is no longer in {} status, attempt was not recorded", history.getId(), expected);
+            }
+        });
+    }
+
+    /**
+     * Runs a blocking write and reports its outcome as a completed future
+     *
+     * @param write blocking write
+     * @return completed or failed future
+     */
+    private static CompletableFuture<Void> run(Runnable write) {
+        try {
+            write.run();
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package org.kunievakateryna.repository;
+
+import org.kunievakateryna.data.EmailBody;
+import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
+
+/**
+ * Repository interface for managing archived EmailBody documents in Elasticsearch
+ */
+public interface EmailBodyRepository extends ElasticsearchRepository<EmailBody, String> {
+}
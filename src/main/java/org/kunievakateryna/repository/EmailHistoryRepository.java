@@ -3,12 +3,16 @@ package org.kunievakateryna.repository;
 import org.kunievakateryna.data.EmailHistory;
 import org.kunievakateryna.data.EmailStatus;
 import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
- * Repository interface for managing EmailHistory documents in Elasticsearch
+ * Repository interface for managing EmailHistory documents in Elasticsearch.
+ * Atomic partial updates are provided by the {@link EmailHistoryUpdateRepository} fragment.
  */
-public interface EmailHistoryRepository extends ElasticsearchRepository<EmailHistory, String> {
+public interface EmailHistoryRepository
+        extends ElasticsearchRepository<EmailHistory, String>, EmailHistoryUpdateRepository {
 
     /**
      * Finds a list of email history records by their current status
@@ -17,4 +21,14 @@ public interface EmailHistoryRepository extends ElasticsearchRepository<EmailHis
      * @return a list of matching EmailHistory records
      */
     List<EmailHistory> findByStatus(EmailStatus status);
+
+    /**
+     * Streams email history records with the given status that are due before the given time.
+     * Results are scrolled, so the whole list is never held in memory.
+     *
+     * @param status the status to search for
+     * @param sendAt upper bound of the delivery time, exclusive
+     * @return stream of matching records, must be closed after use
+     */
+    Stream<EmailHistory> findByStatusAndSendAtBefore(EmailStatus status, LocalDateTime sendAt);
 }
\ No newline at end of file
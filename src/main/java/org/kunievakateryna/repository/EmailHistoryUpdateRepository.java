@@ -0,0 +1,80 @@
+package org.kunievakateryna.repository;
+
+import org.kunievakateryna.data.EmailStatus;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Repository fragment with atomic partial updates of EmailHistory documents.
+ * Updates are executed as Elasticsearch scripts, so the full document never has to be loaded.
+ */
+public interface EmailHistoryUpdateRepository {
+
+    /**
+     * Atomically increments the attempt counter and sets the last attempt time
+     *
+     * @param id the email history id
+     * @return true if the document was updated
+     */
+    boolean incrementAttempts(String id);
+
+    /**
+     * Atomically increments the attempt counter for several documents in one bulk request
+     *
+     * @param ids the email history ids
+     * @return ids of the documents that could not be updated, empty if all were updated
+     */
+    Set<String> incrementAttempts(Collection<String> ids);
+
+    /**
+     * Changes the status only if the document currently has the expected status
+     *
+     * @param id       the email history id
+     * @param expected the status the document must currently have
+     * @param target   the new status
+     * @return true if the precondition held and the status was changed
+     */
+    boolean transitionStatus(String id, EmailStatus expected, EmailStatus target);
+
+    /**
+     * Changes the status of several documents in one bulk request.
+     * Documents that do not have the expected status are left untouched.
+     *
+     * @param ids      the email history ids
+     * @param expected the status the documents must currently have
+     * @param target   the new status
+     * @return ids of the documents whose update failed, empty if no update failed
+     */
+    Set<String> transitionStatus(Collection<String> ids, EmailStatus expected, EmailStatus target);
+
+    /**
+     * Sets the error message of a document
+     *
+     * @param id           the email history id
+     * @param errorMessage the error message, or null to clear it
+     * @return true if the document was updated
+     */
+    boolean setError(String id, String errorMessage);
+
+    /**
+     * Sets the error messages of several documents in one bulk request
+     *
+     * @param errorMessages error messages keyed by email history id
+     * @return ids of the documents that could not be updated, empty if all were updated
+     */
+    Set<String> setError(Map<String, String> errorMessages);
+
+    /**
+     * Records a send attempt in a single round trip: transitions the status with precondition,
+     * increments the attempt counter, sets the last attempt time and sets or clears the error message
+     *
+     * @param id           the email history id
+     * @param expected     the status the document must currently have
+     * @param target       the new status
+     * @param errorMessage the error message, or null to clear it
+     * @return true if the precondition held and the document was updated
+     */
+    boolean recordAttempt(String id, EmailStatus expected, EmailStatus target, String errorMessage);
+}
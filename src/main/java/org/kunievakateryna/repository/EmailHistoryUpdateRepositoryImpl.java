@@ -0,0 +1,198 @@
+package org.kunievakateryna.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.kunievakateryna.data.EmailHistory;
+import org.kunievakateryna.data.EmailStatus;
+import org.springframework.data.elasticsearch.BulkFailureException;
+import org.springframework.data.elasticsearch.core.AbstractElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.query.ScriptType;
+import org.springframework.data.elasticsearch.core.query.UpdateQuery;
+import org.springframework.data.elasticsearch.core.query.UpdateResponse;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Implementation of {@link EmailHistoryUpdateRepository} based on painless update scripts
+ */
+@RequiredArgsConstructor
+public class EmailHistoryUpdateRepositoryImpl implements EmailHistoryUpdateRepository {
+
+    /** Same pattern as the date format of EmailHistory time fields */
+    static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS");
+
+    /** Number of times Elasticsearch retries a script on a concurrent version conflict */
+    static final int RETRY_ON_CONFLICT = 3;
+
+    private static final String INCREMENT_ATTEMPTS_SCRIPT =
+            "ctx._source.attempts = (ctx._source.attempts == null ? 0 : ctx._source.attempts) + 1;"
+                    + "ctx._source.lastAttemptTime = params.now;";
+
+    private static final String TRANSITION_STATUS_SCRIPT =
+            "if (ctx._source.status == params.expected) {"
+                    + "  ctx._source.status = params.target;"
+                    + "} else {"
+                    + "  ctx.op = 'noop';"
+                    + "}";
+
+    private static final String SET_ERROR_SCRIPT =
+            "ctx._source.errorMessage = params.errorMessage;";
+
+    static final String RECORD_ATTEMPT_SCRIPT =
+            "if (ctx._source.status == params.expected) {"
+                    + "  ctx._source.status = params.target;"
+                    + "  ctx._source.attempts = (ctx._source.attempts == null ? 0 : ctx._source.attempts) + 1;"
+                    + "  ctx._source.lastAttemptTime = params.now;"
+                    + "  ctx._source.errorMessage = params.errorMessage;"
+                    + "} else {"
+                    + "  ctx.op = 'noop';"
+                    + "}";
+
+    private final ElasticsearchOperations operations;
+
+    @Override
+    public boolean incrementAttempts(String id) {
+        return update(incrementAttemptsQuery(id));
+    }
+
+    @Override
+    public Set<String> incrementAttempts(Collection<String> ids) {
+        return bulkUpdate(ids.stream().map(this::incrementAttemptsQuery).toList());
+    }
+
+    @Override
+    public boolean transitionStatus(String id, EmailStatus expected, EmailStatus target) {
+        return update(transitionStatusQuery(id, expected, target));
+    }
+
+    @Override
+    public Set<String> transitionStatus(Collection<String> ids, EmailStatus expected, EmailStatus target) {
+        return bulkUpdate(ids.stream().map(id -> transitionStatusQuery(id, expected, target)).toList());
+    }
+
+    @Override
+    public boolean setError(String id, String errorMessage) {
+        return update(setErrorQuery(id, errorMessage));
+    }
+
+    @Override
+    public Set<String> setError(Map<String, String> errorMessages) {
+        return bulkUpdate(errorMessages.entrySet().stream()
+                .map(entry -> setErrorQuery(entry.getKey(), entry.getValue()))
+                .toList());
+    }
+
+    @Override
+    public boolean recordAttempt(String id, EmailStatus expected, EmailStatus target, String errorMessage) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("expected", expected.name());
+        params.put("target", target.name());
+        params.put("now", now());
+        putIfNotNull(params, "errorMessage", errorMessage);
+
+        return update(scriptQuery(id, RECORD_ATTEMPT_SCRIPT, params));
+    }
+
+    private UpdateQuery incrementAttemptsQuery(String id) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("now", now());
+
+        return scriptQuery(id, INCREMENT_ATTEMPTS_SCRIPT, params);
+    }
+
+    private UpdateQuery transitionStatusQuery(String id, EmailStatus expected, EmailStatus target) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("expected", expected.name());
+        params.put("target", target.name());
+
+        return scriptQuery(id, TRANSITION_STATUS_SCRIPT, params);
+    }
+
+    private UpdateQuery setErrorQuery(String id, String errorMessage) {
+        Map<String, Object> params = new HashMap<>();
+        putIfNotNull(params, "errorMessage", errorMessage);
+
+        return scriptQuery(id, SET_ERROR_SCRIPT, params);
+    }
+
+    /**
+     * Builds an inline painless update query.
+     * Missing params resolve to null inside the script, which is how null values are passed.
+     *
+     * @param id     document id
+     * @param script painless source
+     * @param params script params
+     * @return update query
+     */
+    private UpdateQuery scriptQuery(String id, String script, Map<String, Object> params) {
+        return UpdateQuery.builder(id)
+                .withScript(script)
+                .withScriptType(ScriptType.INLINE)
+                .withLang("painless")
+                .withParams(params)
+                .withRetryOnConflict(RETRY_ON_CONFLICT)
+                .build();
+    }
+
+    /**
+     * Executes a single update and refreshes the index the same way the repository does after save
+     *
+     * @param query update query
+     * @return true if the document was changed, false if the script decided on a noop
+     */
+    private boolean update(UpdateQuery query) {
+        UpdateResponse response = operations.update(query, operations.getIndexCoordinatesFor(EmailHistory.class));
+        refreshIfNecessary();
+
+        return response.getResult() == UpdateResponse.Result.UPDATED;
+    }
+
+    /**
+     * Executes several updates in one bulk request.
+     * Items that fail are reported to the caller, documents left untouched by a noop script are not failures.
+     *
+     * @param queries update queries
+     * @return ids of the documents whose update failed, empty if all items succeeded
+     */
+    private Set<String> bulkUpdate(List<UpdateQuery> queries) {
+        if (queries.isEmpty()) {
+            return Set.of();
+        }
+
+        try {
+            operations.bulkUpdate(queries, EmailHistory.class);
+            return Set.of();
+        } catch (BulkFailureException e) {
+            return Set.copyOf(e.getFailedDocuments().keySet());
+        } finally {
+            refreshIfNecessary();
+        }
+    }
+
+    /**
+     * Keeps read-after-write behaviour consistent with ElasticsearchRepository#save,
+     * which refreshes the index when no refresh policy is configured
+     */
+    private void refreshIfNecessary() {
+        if (operations instanceof AbstractElasticsearchTemplate template && template.getRefreshPolicy() != null) {
+            return;
+        }
+        operations.indexOps(EmailHistory.class).refresh();
+    }
+
+    private static String now() {
+        return LocalDateTime.now().format(DATE_FORMATTER);
+    }
+
+    private static void putIfNotNull(Map<String, Object> params, String key, Object value) {
+        if (value != null) {
+            params.put(key, value);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package org.kunievakateryna.repository;
+
+import org.kunievakateryna.data.EmailHistory;
+import org.kunievakateryna.data.EmailStatus;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Writer of EmailHistory documents used by the RabbitMQ listener.
+ * The implementation is selected with app.elasticsearch.async.enabled:
+ * {@link AsyncEmailHistoryWriter} by default, {@link BlockingEmailHistoryWriter} when it is false.
+ */
+public interface EmailHistoryWriter {
+
+    /**
+     * Indexes the full document
+     *
+     * @param history email history record
+     * @return future completed when Elasticsearch acknowledged the write
+     */
+    CompletableFuture<Void> save(EmailHistory history);
+
+    /**
+     * Indexes the full document once a previous write completed, e.g. the archive write of its body.
+     * The document is mapped immediately, so changes made to the entity afterwards are not included.
+     *
+     * @param previous write the document depends on, the document is not written if it failed
+     * @param history  email history record
+     * @return future completed when Elasticsearch acknowledged the write
+     */
+    CompletableFuture<Void> saveAfter(CompletableFuture<Void> previous, EmailHistory history);
+
+    /**
+     * Records a send attempt once the creation of the record completed.
+     * Uses the same precondition-guarded script as {@link EmailHistoryUpdateRepository#recordAttempt}.
+     * If the creation failed, e.g. because the archive write of its body failed, nothing is written
+     * and the failure is propagated, so a record never points to a body that was not stored.
+     *
+     * @param created  future of the write that created the record
+     * @param history  email history record with the attempt outcome set
+     * @param expected the status the stored record must currently have
+     * @return future completed when Elasticsearch acknowledged the write, failed if the creation failed
+     */
+    CompletableFuture<Void> saveAttempt(CompletableFuture<Void> created, EmailHistory history, EmailStatus expected);
+}
@@ -0,0 +1,22 @@
+package org.kunievakateryna.repository;
+
+import org.kunievakateryna.data.SuppressedRecipient;
+import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+/**
+ * Repository interface for managing SuppressedRecipient documents in Elasticsearch
+ */
+public interface SuppressedRecipientRepository extends ElasticsearchRepository<SuppressedRecipient, String> {
+
+    /**
+     * Streams suppressed recipients added at or after the given time.
+     * Results are scrolled, so the whole list is never held in memory.
+     *
+     * @param createdAt lower bound of the creation time
+     * @return stream of matching records, must be closed after use
+     */
+    Stream<SuppressedRecipient> findByCreatedAtGreaterThanEqual(LocalDateTime createdAt);
+}
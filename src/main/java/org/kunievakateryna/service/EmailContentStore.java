@@ -0,0 +1,192 @@
+package org.kunievakateryna.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.kunievakateryna.data.EmailBody;
+import org.kunievakateryna.data.EmailHistory;
+import org.kunievakateryna.repository.EmailBodyRepository;
+import org.kunievakateryna.util.LruCache;
+import org.kunievakateryna.util.NamedThreadFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Service that decides where email bodies are stored.
+ * By default the body is kept inline in EmailHistory.content.
+ * With archiving enabled the body is compressed and stored once per distinct content in the email_body index,
+ * EmailHistory keeps only its hash and the body is fetched lazily through a small LRU cache.
+ * Archive writes run on a bounded pool of archive workers, so RabbitMQ consumers do not wait for them;
+ * when all workers are busy and their queue is full, the calling thread writes the body itself.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EmailContentStore {
+
+    /** Max time to wait for queued archive writes on shutdown */
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+
+    private final EmailBodyRepository repository;
+
+    @Value("${app.content.archive.enabled:false}")
+    private boolean archiveEnabled;
+
+    @Value("${app.content.archive.cache-size:1000}")
+    private int cacheSize;
+
+    @Value("${app.content.archive.threads:4}")
+    private int archiveThreads;
+
+    @Value("${app.content.archive.queue-capacity:1000}")
+    private int archiveQueueCapacity;
+
+    private LruCache<String, String> cache;
+
+    /** Runs the blocking archive lookups and writes */
+    private ThreadPoolExecutor archiveExecutor;
+
+    /**
+     * Allocates the cache of recently used bodies and the archive workers
+     */
+    @PostConstruct
+    public void init() {
+        cache = new LruCache<>(cacheSize);
+        archiveExecutor = new ThreadPoolExecutor(
+                archiveThreads,
+                archiveThreads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(archiveQueueCapacity),
+                new NamedThreadFactory("email-archive-"),
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+    }
+
+    /**
+     * Stops accepting archive writes on shutdown and waits for the queued ones
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        archiveExecutor.shutdown();
+        if (!archiveExecutor.awaitTermination(SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+            log.warn("Archive writes did not finish within {}", SHUTDOWN_TIMEOUT);
+        }
+    }
+
+    /**
+     * Sets the body of an email history record, either inline or as a reference to the archive.
+     * The record is updated before this method returns; a body that is not archived yet is written asynchronously.
+     *
+     * @param history email history record
+     * @param body    email body
+     * @return future completed when the body is archived, already completed if nothing has to be written
+     */
+    public CompletableFuture<Void> store(EmailHistory history, String body) {
+        if (!archiveEnabled || body == null) {
+            history.setContent(body);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        String hash = hash(bytes);
+        history.setContent(null);
+        history.setContentHash(hash);
+
+        if (cache.containsKey(hash)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> archive(hash, body, bytes), archiveExecutor);
+    }
+
+    /**
+     * Returns the body of an email history record, fetching it from the archive if needed
+     *
+     * @param history email history record
+     * @return email body
+     */
+    public String load(EmailHistory history) {
+        String hash = history.getContentHash();
+        if (hash == null) {
+            return history.getContent();
+        }
+
+        String body = cache.get(hash);
+        if (body == null) {
+            EmailBody archived = repository.findById(hash)
+                    .orElseThrow(() -> new IllegalStateException("Archived email body not found, hash: " + hash));
+            body = decompress(archived.getData());
+            cache.put(hash, body);
+        }
+        return body;
+    }
+
+    /**
+     * Writes a body to the archive unless it is already there.
+     * The body is cached only once it is archived, so a failed write is retried by the next store.
+     *
+     * @param hash  hash of the body
+     * @param body  email body
+     * @param bytes UTF-8 encoded body
+     */
+    private void archive(String hash, String body, byte[] bytes) {
+        if (!repository.existsById(hash)) {
+            repository.save(EmailBody.builder()
+                    .id(hash)
+                    .data(compress(bytes))
+                    .size(bytes.length)
+                    .createdAt(LocalDateTime.now())
+                    .build());
+
+            log.info("Archived new email body, hash: {}", hash);
+        }
+        cache.put(hash, body);
+    }
+
+    private static String hash(byte[] bytes) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String compress(byte[] bytes) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getEncoder().encodeToString(compressed.toByteArray());
+    }
+
+    private static String decompress(String data) {
+        byte[] compressed = Base64.getDecoder().decode(data);
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
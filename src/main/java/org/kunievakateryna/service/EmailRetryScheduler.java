@@ -4,11 +4,11 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.kunievakateryna.data.EmailHistory;
 import org.kunievakateryna.data.EmailStatus;
+import org.kunievakateryna.lifecycle.InFlightTracker;
 import org.kunievakateryna.repository.EmailHistoryRepository;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -21,6 +21,9 @@ public class EmailRetryScheduler {
 
     private final EmailHistoryRepository repository;
     private final EmailService emailService;
+    private final InFlightTracker inFlightTracker;
+    private final RecipientSuppressionService suppressionService;
+    private final EmailContentStore contentStore;
 
     /**
      * Scheduled entry point that finds failed emails and retries sending them
@@ -40,6 +43,10 @@ public class EmailRetryScheduler {
         }
 
         for (EmailHistory email : failedEmails) {
+            if (inFlightTracker.isDraining()) {
+                log.info("Application is shutting down, remaining emails will be resent on next start");
+                return;
+            }
             processRetry(email);
         }
 
@@ -56,19 +63,38 @@ public class EmailRetryScheduler {
     }
 
     /**
-     * Processes a single email retry attempt
+     * Processes a single email retry attempt.
+     * All writes, including the one that stops retries for a suppressed recipient, are tracked as in-flight work.
+     * An Elasticsearch error only skips this email, it stays in ERROR status and is retried on the next run.
      *
      * @param email email history record
      */
     private void processRetry(EmailHistory email) {
+        inFlightTracker.begin();
+        try {
+            if (suppressionService.isSuppressed(email.getRecipient())) {
+                markAsSuppressed(email);
+                return;
+            }
+            resend(email);
+        } catch (Exception e) {
+            log.error("Failed to process retry of email ID {}, it is left for the next run: {}", email.getId(), e.getMessage());
+        } finally {
+            inFlightTracker.end();
+        }
+    }
+
+    /**
+     * Resends the email and records the outcome of the attempt
+     *
+     * @param email email history record
+     */
+    private void resend(EmailHistory email) {
         try {
             resendEmail(email);
             markAsSent(email);
         } catch (Exception e) {
             markAsError(email, e);
-        } finally {
-            updateAttemptMetadata(email);
-            repository.save(email);
         }
     }
 
@@ -87,32 +113,44 @@ public class EmailRetryScheduler {
         emailService.sendSimpleEmail(
                 email.getRecipient(),
                 email.getSubject(),
-                email.getContent()
+                contentStore.load(email)
         );
     }
 
     /**
-     * Updates email status after successful resend
+     * Records a successful resend: sets SENT status, clears the error and increments attempts
      *
      * @param email email history record
      */
     private void markAsSent(EmailHistory email) {
-        email.setStatus(EmailStatus.SENT);
-        email.setErrorMessage(null);
+        boolean updated = repository.recordAttempt(email.getId(), EmailStatus.ERROR, EmailStatus.SENT, null);
+        if (!updated) {
+            logConcurrentUpdate(email);
+            return;
+        }
 
         log.info("Email ID: {} resent successfully", email.getId());
     }
 
     /**
-     * Updates email error information after failed resend
+     * Records a failed resend: keeps ERROR status, updates the error and increments attempts.
+     * A recipient rejected permanently is suppressed, so the next run stops retrying the email.
      *
      * @param email email history record
      * @param exception exception that occurred during resend
      */
     private void markAsError(EmailHistory email, Exception exception) {
-        email.setErrorMessage(
+        suppressionService.suppressOnPermanentFailure(email.getRecipient(), exception);
+
+        boolean updated = repository.recordAttempt(
+                email.getId(),
+                EmailStatus.ERROR,
+                EmailStatus.ERROR,
                 exception.getClass().getSimpleName() + ": " + exception.getMessage()
         );
+        if (!updated) {
+            logConcurrentUpdate(email);
+        }
 
         log.error(
                 "Resending failed for email ID {}: {}",
@@ -122,12 +160,22 @@ public class EmailRetryScheduler {
     }
 
     /**
-     * Updates attempt count and last attempt timestamp
+     * Stops retrying an email whose recipient was suppressed after the first attempt
+     *
+     * @param email email history record
+     */
+    private void markAsSuppressed(EmailHistory email) {
+        repository.transitionStatus(email.getId(), EmailStatus.ERROR, EmailStatus.SUPPRESSED);
+
+        log.info("Recipient of email ID: {} is suppressed, retries stopped", email.getId());
+    }
+
+    /**
+     * Logs that the email left ERROR status while it was being resent
      *
      * @param email email history record
      */
-    private void updateAttemptMetadata(EmailHistory email) {
-        email.setAttempts(email.getAttempts() + 1);
-        email.setLastAttemptTime(LocalDateTime.now());
+    private void logConcurrentUpdate(EmailHistory email) {
+        log.warn("Email ID: {} is no longer in ERROR status, attempt was not recorded", email.getId());
     }
 }
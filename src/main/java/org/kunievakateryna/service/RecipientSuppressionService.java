@@ -0,0 +1,231 @@
+package org.kunievakateryna.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.kunievakateryna.data.SuppressedRecipient;
+import org.kunievakateryna.data.SuppressionReason;
+import org.kunievakateryna.repository.SuppressedRecipientRepository;
+import org.kunievakateryna.util.BloomFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Service that decides whether a recipient is suppressed (hard-bounced, unsubscribed, ...).
+ * Suppressed recipients are persisted in Elasticsearch and mirrored in memory:
+ * a Bloom filter answers most lookups without touching anything else,
+ * and its positive answers are confirmed against an exact set of addresses.
+ * When the exact set would exceed its capacity it is dropped and positives are confirmed in Elasticsearch,
+ * which keeps memory bounded by the Bloom filter size.
+ * Recipients are added when the SMTP server rejects their address permanently,
+ * external bounce processors can add them to the index directly.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RecipientSuppressionService {
+
+    /** Overlap of incremental refresh windows, covers index refresh latency and clock skew between writers */
+    private static final Duration REFRESH_OVERLAP = Duration.ofMinutes(1);
+
+    private static final LocalDateTime LOAD_ALL_SINCE = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final SuppressedRecipientRepository repository;
+
+    @Value("${app.suppression.expected-entries:10000000}")
+    private long expectedEntries;
+
+    @Value("${app.suppression.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${app.suppression.exact-set-capacity:1000000}")
+    private int exactSetCapacity;
+
+    /** Exact set of suppressed addresses, null once it exceeded its capacity */
+    private volatile Set<String> exactSet = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong entryCount = new AtomicLong();
+    private volatile LocalDateTime loadedUntil;
+    private BloomFilter bloomFilter;
+
+    /**
+     * Allocates the Bloom filter and loads all suppressed recipients
+     */
+    @PostConstruct
+    public void init() {
+        bloomFilter = new BloomFilter(expectedEntries, falsePositiveRate);
+        log.info(
+                "Allocated suppression Bloom filter: {} MB, {} hash functions",
+                bloomFilter.bitSize() / 8 / 1024 / 1024,
+                bloomFilter.hashFunctions()
+        );
+
+        refresh();
+    }
+
+    /**
+     * Checks whether emails to the recipient must not be sent
+     *
+     * @param recipient recipient email address
+     * @return true if the recipient is suppressed
+     */
+    public boolean isSuppressed(String recipient) {
+        String address = normalize(recipient);
+        if (address == null || !bloomFilter.mightContain(address)) {
+            return false;
+        }
+
+        Set<String> exact = exactSet;
+        if (exact != null) {
+            return exact.contains(address);
+        }
+        return repository.existsById(address);
+    }
+
+    /**
+     * Adds a recipient to the suppression list
+     *
+     * @param recipient recipient email address
+     * @param reason    why the recipient is suppressed
+     */
+    public void suppress(String recipient, SuppressionReason reason) {
+        String address = normalize(recipient);
+        if (address == null) {
+            return;
+        }
+
+        repository.save(SuppressedRecipient.builder()
+                .id(address)
+                .reason(reason)
+                .createdAt(LocalDateTime.now())
+                .build());
+        add(address);
+
+        log.info("Recipient {} suppressed, reason: {}", address, reason);
+    }
+
+    /**
+     * Suppresses the recipient if sending failed because the SMTP server rejected the address with a permanent 5xx reply.
+     * Temporary failures are left to the retry scheduler. Never throws, a failed write is only logged.
+     *
+     * @param recipient recipient email address
+     * @param error     exception thrown by the send
+     * @return true if the recipient was suppressed
+     */
+    public boolean suppressOnPermanentFailure(String recipient, Exception error) {
+        if (!isPermanentRecipientFailure(error)) {
+            return false;
+        }
+
+        try {
+            suppress(recipient, SuppressionReason.HARD_BOUNCE);
+            return true;
+        } catch (Exception e) {
+            log.warn("Failed to suppress hard-bounced recipient {}: {}", recipient, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Scheduled incremental refresh: loads recipients added since the previous refresh,
+     * including those written to the index by other instances or external bounce processors
+     */
+    @Scheduled(
+            fixedDelayString = "${app.suppression.refresh-delay:60000}",
+            initialDelayString = "${app.suppression.refresh-delay:60000}"
+    )
+    public void refresh() {
+        LocalDateTime since = loadedUntil == null ? LOAD_ALL_SINCE : loadedUntil.minus(REFRESH_OVERLAP);
+        LocalDateTime refreshStartedAt = LocalDateTime.now();
+        long before = entryCount.get();
+
+        try (Stream<SuppressedRecipient> recipients = repository.findByCreatedAtGreaterThanEqual(since)) {
+            recipients.forEach(recipient -> add(recipient.getId()));
+        } catch (Exception e) {
+            log.warn("Failed to refresh suppression list: {}", e.getMessage());
+            return;
+        }
+
+        loadedUntil = refreshStartedAt;
+        log.info("Suppression list refreshed, {} new entries loaded", entryCount.get() - before);
+    }
+
+    /**
+     * Adds a normalized address to the in-memory structures
+     *
+     * @param address normalized recipient address
+     */
+    private void add(String address) {
+        Set<String> exact = exactSet;
+        boolean isNew = exact == null ? !bloomFilter.mightContain(address) : exact.add(address);
+        bloomFilter.put(address);
+
+        if (isNew && entryCount.incrementAndGet() == expectedEntries) {
+            log.warn("Suppression list reached {} entries, Bloom filter false positive rate will grow", expectedEntries);
+        }
+        if (exact != null && exact.size() > exactSetCapacity) {
+            dropExactSet();
+        }
+    }
+
+    /**
+     * Switches positive-answer confirmation to Elasticsearch and releases the exact set.
+     * The set is unpublished rather than cleared, so a lookup that already read the reference
+     * still sees every address instead of a false negative.
+     */
+    private void dropExactSet() {
+        exactSet = null;
+
+        log.warn(
+                "Suppression list exceeded exact set capacity of {}, Bloom filter positives will be confirmed in Elasticsearch",
+                exactSetCapacity
+        );
+    }
+
+    /**
+     * Checks whether a send failed because a recipient address was rejected with a 5xx reply.
+     * Spring reports failed messages in MailSendException, Jakarta Mail chains rejected addresses as causes.
+     *
+     * @param error exception thrown by the send
+     * @return true if the failure is permanent for the recipient
+     */
+    private static boolean isPermanentRecipientFailure(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SMTPAddressFailedException rejected && rejected.getReturnCode() >= 500) {
+                return true;
+            }
+            if (cause instanceof MailSendException sendFailure) {
+                for (Exception messageFailure : sendFailure.getMessageExceptions()) {
+                    if (isPermanentRecipientFailure(messageFailure)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Normalizes an address so lookups are case-insensitive
+     *
+     * @param recipient recipient email address
+     * @return normalized address, or null if the address is blank
+     */
+    private static String normalize(String recipient) {
+        if (recipient == null || recipient.isBlank()) {
+            return null;
+        }
+        return recipient.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,290 @@
+package org.kunievakateryna.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.kunievakateryna.data.EmailHistory;
+import org.kunievakateryna.data.EmailStatus;
+import org.kunievakateryna.lifecycle.InFlightTracker;
+import org.kunievakateryna.repository.EmailHistoryRepository;
+import org.kunievakateryna.util.NamedThreadFactory;
+import org.kunievakateryna.util.TimingWheel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Service that delivers emails with a future send time.
+ * Scheduled emails are always persisted with SCHEDULED status. Those due within the loading window
+ * are held by id in an in-memory timing wheel and sent when they expire; far-future ones stay only
+ * in Elasticsearch and are loaded when the window moves over them, so no per-tick index scans are made.
+ * The tick only expires ids and hands them in batches to a bounded pool of dispatch workers,
+ * so a burst of due emails never holds up the wheel or the shared scheduler threads.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ScheduledEmailDispatcher {
+
+    private final EmailHistoryRepository repository;
+    private final EmailService emailService;
+    private final EmailContentStore contentStore;
+    private final RecipientSuppressionService suppressionService;
+    private final InFlightTracker inFlightTracker;
+
+    @Value("${app.scheduling.wheel-tick:100}")
+    private long tickMs;
+
+    @Value("${app.scheduling.wheel-size:512}")
+    private int wheelSize;
+
+    @Value("${app.scheduling.window:600000}")
+    private long windowMs;
+
+    @Value("${app.scheduling.dispatch-threads:8}")
+    private int dispatchThreads;
+
+    @Value("${app.scheduling.dispatch-batch-size:100}")
+    private int dispatchBatchSize;
+
+    /** Ids currently held in the wheel, due or being dispatched, prevents double scheduling */
+    private final Set<String> scheduledIds = ConcurrentHashMap.newKeySet();
+
+    /** Ids that are due and wait for a dispatch worker */
+    private final Queue<String> dueIds = new ConcurrentLinkedQueue<>();
+
+    private volatile long windowEndMs;
+    private TimingWheel<String> wheel;
+    private ThreadPoolExecutor dispatchExecutor;
+
+    /**
+     * Creates the timing wheel starting at the current time and the dispatch workers.
+     * Workers accept at most one queued batch each, further due ids stay queued in memory.
+     */
+    @PostConstruct
+    public void init() {
+        wheel = new TimingWheel<>(tickMs, wheelSize, System.currentTimeMillis());
+        dispatchExecutor = new ThreadPoolExecutor(
+                dispatchThreads,
+                dispatchThreads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(dispatchThreads),
+                new NamedThreadFactory("email-dispatch-")
+        );
+    }
+
+    /**
+     * Stops accepting batches on shutdown, sends already in progress are drained by the lifecycle manager
+     */
+    @PreDestroy
+    public void close() {
+        dispatchExecutor.shutdown();
+    }
+
+    /**
+     * Checks whether an email with the given send time must be deferred
+     *
+     * @param sendAt requested delivery time, may be null
+     * @return true if the send time is in the future
+     */
+    public boolean isDeferred(LocalDateTime sendAt) {
+        return sendAt != null && sendAt.isAfter(LocalDateTime.now());
+    }
+
+    /**
+     * Schedules an already persisted SCHEDULED email.
+     * Emails beyond the current window are left to the window loader.
+     *
+     * @param history email history record with SCHEDULED status
+     */
+    public void schedule(EmailHistory history) {
+        long sendAtMs = toEpochMillis(history.getSendAt());
+        if (sendAtMs < windowEndMs) {
+            hold(history.getId(), sendAtMs);
+        }
+    }
+
+    /**
+     * Moves the loading window forward and puts emails that became due within it into the wheel.
+     * The window end is published before the query, so an email scheduled concurrently is either
+     * returned by the query or put into the wheel by {@link #schedule(EmailHistory)}.
+     */
+    @Scheduled(
+            fixedDelayString = "${app.scheduling.window-load-delay:300000}",
+            initialDelayString = "${app.scheduling.window-initial-delay:0}"
+    )
+    public void loadWindow() {
+        long windowEnd = System.currentTimeMillis() + windowMs;
+        windowEndMs = windowEnd;
+
+        long loaded;
+        try (Stream<EmailHistory> emails = repository.findByStatusAndSendAtBefore(
+                EmailStatus.SCHEDULED,
+                toLocalDateTime(windowEnd)
+        )) {
+            loaded = emails
+                    .filter(email -> hold(email.getId(), toEpochMillis(email.getSendAt())))
+                    .count();
+        }
+
+        log.info("Loaded {} scheduled emails due before {}", loaded, toLocalDateTime(windowEnd));
+    }
+
+    /**
+     * Advances the timing wheel and hands the emails that became due to the dispatch workers
+     */
+    @Scheduled(fixedRateString = "${app.scheduling.wheel-tick:100}")
+    public void tick() {
+        if (inFlightTracker.isDraining()) {
+            return;
+        }
+
+        wheel.advanceClock(System.currentTimeMillis(), dueIds::add);
+        handOffDueIds();
+    }
+
+    /**
+     * Puts an email into the wheel unless it is already there
+     *
+     * @param id       email history id
+     * @param sendAtMs delivery time, in epoch ms
+     * @return true if the email was not held yet
+     */
+    private boolean hold(String id, long sendAtMs) {
+        if (!scheduledIds.add(id)) {
+            return false;
+        }
+        if (!wheel.add(id, sendAtMs)) {
+            dueIds.add(id);
+        }
+        return true;
+    }
+
+    /**
+     * Submits due ids in batches until the workers are saturated.
+     * A batch that is not accepted is queued again and submitted on the next tick.
+     */
+    private void handOffDueIds() {
+        while (true) {
+            List<String> batch = new ArrayList<>(dispatchBatchSize);
+            for (String id = dueIds.poll(); id != null; id = dueIds.poll()) {
+                batch.add(id);
+                if (batch.size() == dispatchBatchSize) {
+                    break;
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            try {
+                dispatchExecutor.execute(() -> dispatch(batch));
+            } catch (RejectedExecutionException e) {
+                dueIds.addAll(batch);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Loads due emails in one request and sends them, runs on a dispatch worker.
+     * Draining is checked before every email, so no new SMTP send starts once shutdown has begun.
+     * Ids are released even on failure, so emails that were not sent are picked up by the next window load.
+     *
+     * @param ids ids of due emails
+     */
+    private void dispatch(List<String> ids) {
+        try {
+            if (inFlightTracker.isDraining()) {
+                return;
+            }
+            for (EmailHistory email : repository.findAllById(ids)) {
+                if (!trySend(email)) {
+                    log.info("Application is shutting down, remaining scheduled emails will be sent on next start");
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Failed to dispatch {} scheduled emails: {}", ids.size(), e.getMessage());
+        } finally {
+            ids.forEach(scheduledIds::remove);
+        }
+    }
+
+    /**
+     * Sends a due email unless shutdown has begun.
+     * The email is registered as in flight before the draining check, so shutdown either waits for it or it is not sent.
+     *
+     * @param email email history record
+     * @return false if the application is draining and the email was not sent
+     */
+    private boolean trySend(EmailHistory email) {
+        inFlightTracker.begin();
+        try {
+            if (inFlightTracker.isDraining()) {
+                return false;
+            }
+            if (email.getStatus() == EmailStatus.SCHEDULED) {
+                send(email);
+            }
+            return true;
+        } finally {
+            inFlightTracker.end();
+        }
+    }
+
+    /**
+     * Sends a due email and records the outcome, failed emails are left to the retry scheduler
+     *
+     * @param email email history record
+     */
+    private void send(EmailHistory email) {
+        if (suppressionService.isSuppressed(email.getRecipient())) {
+            repository.transitionStatus(email.getId(), EmailStatus.SCHEDULED, EmailStatus.SUPPRESSED);
+            log.info("Recipient of scheduled email ID: {} is suppressed, email was not sent", email.getId());
+            return;
+        }
+
+        try {
+            emailService.sendSimpleEmail(email.getRecipient(), email.getSubject(), contentStore.load(email));
+            repository.recordAttempt(email.getId(), EmailStatus.SCHEDULED, EmailStatus.SENT, null);
+
+            log.info("Scheduled email ID: {} sent to: {}", email.getId(), email.getRecipient());
+        } catch (Exception e) {
+            repository.recordAttempt(
+                    email.getId(),
+                    EmailStatus.SCHEDULED,
+                    EmailStatus.ERROR,
+                    e.getClass().getSimpleName() + ": " + e.getMessage()
+            );
+            suppressionService.suppressOnPermanentFailure(email.getRecipient(), e);
+
+            log.error("Failed to send scheduled email ID {}: {}", email.getId(), e.getMessage());
+        }
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,116 @@
+package org.kunievakateryna.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter for strings.
+ * Answers "definitely absent" or "possibly present" using a fixed amount of memory
+ * that depends only on the expected number of entries and the false positive rate.
+ */
+public class BloomFilter {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long SECOND_HASH_SEED = 0x9e3779b97f4a7c15L;
+
+    private final AtomicLongArray words;
+    private final long bitSize;
+    private final int hashFunctions;
+
+    /**
+     * Creates a filter sized for the given number of entries
+     *
+     * @param expectedInsertions number of entries the filter is sized for
+     * @param falsePositiveRate  desired false positive probability, between 0 and 1
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("expectedInsertions must be positive");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+        }
+
+        double ln2 = Math.log(2);
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, (Math.max(bits, Long.SIZE) + Long.SIZE - 1) / Long.SIZE);
+
+        this.words = new AtomicLongArray(wordCount);
+        this.bitSize = (long) wordCount * Long.SIZE;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * ln2));
+    }
+
+    /**
+     * Adds a value to the filter
+     *
+     * @param value value to add
+     */
+    public void put(CharSequence value) {
+        long hash1 = hash(value);
+        long hash2 = mix(hash1 ^ SECOND_HASH_SEED) | 1;
+
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitSize);
+            int wordIndex = (int) (bit >>> 6);
+            long mask = 1L << bit;
+
+            if ((words.get(wordIndex) & mask) == 0) {
+                words.getAndAccumulate(wordIndex, mask, (word, m) -> word | m);
+            }
+        }
+    }
+
+    /**
+     * Checks whether a value may have been added to the filter
+     *
+     * @param value value to check
+     * @return false if the value was definitely never added, true if it possibly was
+     */
+    public boolean mightContain(CharSequence value) {
+        long hash1 = hash(value);
+        long hash2 = mix(hash1 ^ SECOND_HASH_SEED) | 1;
+
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitSize);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return size of the filter in bits
+     */
+    public long bitSize() {
+        return bitSize;
+    }
+
+    /**
+     * @return number of hash functions applied per value
+     */
+    public int hashFunctions() {
+        return hashFunctions;
+    }
+
+    /**
+     * FNV-1a over the UTF-16 chars followed by the murmur3 finalizer for better bit dispersion
+     */
+    private static long hash(CharSequence value) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
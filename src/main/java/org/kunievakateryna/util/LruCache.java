@@ -0,0 +1,51 @@
+package org.kunievakateryna.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Small thread-safe cache that evicts the least recently used entry when full
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class LruCache<K, V> {
+
+    private final Map<K, V> entries;
+
+    /**
+     * @param capacity maximum number of entries
+     */
+    public LruCache(int capacity) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * @param key key to look up
+     * @return cached value, or null if absent
+     */
+    public synchronized V get(K key) {
+        return entries.get(key);
+    }
+
+    /**
+     * @param key   key to cache the value under
+     * @param value value to cache
+     */
+    public synchronized void put(K key, V value) {
+        entries.put(key, value);
+    }
+
+    /**
+     * @param key key to look up
+     * @return true if the key is cached
+     */
+    public synchronized boolean containsKey(K key) {
+        return entries.containsKey(key);
+    }
+}
@@ -0,0 +1,25 @@
+package org.kunievakateryna.util;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread factory for platform threads named with a common prefix and a sequence number, e.g. email-archive-1
+ */
+public class NamedThreadFactory implements ThreadFactory {
+
+    private final String prefix;
+    private final AtomicInteger counter = new AtomicInteger();
+
+    /**
+     * @param prefix thread name prefix, the sequence number is appended to it
+     */
+    public NamedThreadFactory(String prefix) {
+        this.prefix = prefix;
+    }
+
+    @Override
+    public Thread newThread(Runnable task) {
+        return new Thread(task, prefix + counter.incrementAndGet());
+    }
+}
@@ -0,0 +1,150 @@
+package org.kunievakateryna.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel for deferred items.
+ * The lowest level has wheelSize buckets of tickMs each, every next level has wheelSize buckets
+ * as wide as the whole level below it, and levels are added on demand for far expirations.
+ * Insertion is O(1); when the clock advances, only the bucket that just passed is expired and
+ * higher level buckets are cascaded into lower levels when their time range starts.
+ * An item expires no earlier than its expiration and at most one tick later.
+ *
+ * @param <T> item type
+ */
+public class TimingWheel<T> {
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final Level<T> root;
+    private int size;
+
+    /**
+     * @param tickMs    width of a bucket of the lowest level, in ms
+     * @param wheelSize number of buckets per level
+     * @param startMs   initial clock time, in ms
+     */
+    public TimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs <= 0 || wheelSize < 2) {
+            throw new IllegalArgumentException("tickMs must be positive and wheelSize at least 2");
+        }
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.root = new Level<>(tickMs, wheelSize, startMs - startMs % tickMs);
+    }
+
+    /**
+     * Adds an item that expires at the given time
+     *
+     * @param item         item to add
+     * @param expirationMs expiration time, in ms
+     * @return false if the item is already expired and was not added
+     */
+    public synchronized boolean add(T item, long expirationMs) {
+        if (!root.add(new Entry<>(item, expirationMs))) {
+            return false;
+        }
+        size++;
+        return true;
+    }
+
+    /**
+     * Advances the clock tick by tick up to the given time and passes expired items to the consumer
+     *
+     * @param timeMs    current time, in ms
+     * @param onExpired consumer of expired items, called while holding the wheel lock
+     */
+    public synchronized void advanceClock(long timeMs, Consumer<T> onExpired) {
+        while (root.currentTime + tickMs <= timeMs) {
+            long now = root.currentTime + tickMs;
+            root.currentTime = now;
+
+            for (Entry<T> entry : root.takeBucket(now / tickMs - 1)) {
+                expire(entry, onExpired);
+            }
+
+            List<Entry<T>> cascaded = new ArrayList<>();
+            for (Level<T> level = root.overflow; level != null && now % level.tickMs == 0; level = level.overflow) {
+                level.currentTime = now;
+                cascaded.addAll(level.takeBucket(now / level.tickMs));
+            }
+            for (Entry<T> entry : cascaded) {
+                if (!root.add(entry)) {
+                    expire(entry, onExpired);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return number of items in the wheel
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private void expire(Entry<T> entry, Consumer<T> onExpired) {
+        size--;
+        onExpired.accept(entry.item());
+    }
+
+    private record Entry<T>(T item, long expirationMs) {
+    }
+
+    /**
+     * Single wheel level, lazily linked to the next coarser level
+     */
+    private static class Level<T> {
+
+        private final long tickMs;
+        private final int wheelSize;
+        private final long interval;
+        private final List<List<Entry<T>>> buckets;
+        private long currentTime;
+        private Level<T> overflow;
+
+        Level(long tickMs, int wheelSize, long currentTime) {
+            this.tickMs = tickMs;
+            this.wheelSize = wheelSize;
+            this.interval = tickMs * wheelSize;
+            this.currentTime = currentTime;
+            this.buckets = new ArrayList<>(wheelSize);
+            for (int i = 0; i < wheelSize; i++) {
+                buckets.add(new ArrayList<>());
+            }
+        }
+
+        /**
+         * @return false if the entry is already expired, only possible on the lowest level
+         */
+        boolean add(Entry<T> entry) {
+            if (entry.expirationMs() < currentTime) {
+                return false;
+            }
+            if (entry.expirationMs() < currentTime + interval) {
+                buckets.get(index(entry.expirationMs() / tickMs)).add(entry);
+                return true;
+            }
+            if (overflow == null) {
+                overflow = new Level<>(interval, wheelSize, currentTime - currentTime % interval);
+            }
+            return overflow.add(entry);
+        }
+
+        List<Entry<T>> takeBucket(long virtualId) {
+            int index = index(virtualId);
+            List<Entry<T>> bucket = buckets.get(index);
+            if (bucket.isEmpty()) {
+                return List.of();
+            }
+            buckets.set(index, new ArrayList<>());
+            return bucket;
+        }
+
+        private int index(long virtualId) {
+            return (int) (virtualId % wheelSize);
+        }
+    }
+}
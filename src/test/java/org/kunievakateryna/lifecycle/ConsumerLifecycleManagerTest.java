@@ -0,0 +1,102 @@
+package org.kunievakateryna.lifecycle;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kunievakateryna.data.EmailHistory;
+import org.mockito.InOrder;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class ConsumerLifecycleManagerTest {
+
+    private final RabbitListenerEndpointRegistry listenerRegistry = mock(RabbitListenerEndpointRegistry.class);
+    private final ElasticsearchOperations operations = mock(ElasticsearchOperations.class);
+    private final IndexOperations indexOps = mock(IndexOperations.class);
+    private final JavaMailSenderImpl mailSender = mock(JavaMailSenderImpl.class);
+    private final SimpleMessageListenerContainer container = mock(SimpleMessageListenerContainer.class);
+    private final InFlightTracker inFlightTracker = new InFlightTracker();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ConsumerLifecycleManager manager;
+
+    @BeforeEach
+    void setUp() {
+        when(listenerRegistry.getListenerContainers()).thenReturn(List.of(container));
+        when(operations.indexOps(EmailHistory.class)).thenReturn(indexOps);
+
+        manager = new ConsumerLifecycleManager(listenerRegistry, operations, mailSender, inFlightTracker, meterRegistry);
+        ReflectionTestUtils.setField(manager, "drainTimeout", Duration.ofSeconds(5));
+    }
+
+    @Test
+    void shouldWarmUpConnectionsBeforeStartingContainers() throws Exception {
+        manager.start();
+
+        InOrder inOrder = inOrder(indexOps, mailSender, container);
+        inOrder.verify(indexOps).exists();
+        inOrder.verify(mailSender).testConnection();
+        inOrder.verify(container).start();
+        assertThat(manager.isRunning()).isTrue();
+        assertThat(meterRegistry.timer("email.consumer.warmup").count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldStartContainers_whenWarmUpFails() {
+        when(indexOps.exists()).thenThrow(new IllegalStateException("Elasticsearch down"));
+
+        manager.start();
+
+        verify(container).start();
+        assertThat(manager.isRunning()).isTrue();
+    }
+
+    @Test
+    void shouldDrainInFlightWorkBeforeStoppingContainers() {
+        AtomicInteger inFlightAtStop = new AtomicInteger(-1);
+        doAnswer(invocation -> {
+            inFlightAtStop.set(inFlightTracker.getInFlight());
+            return null;
+        }).when(container).stop();
+        manager.start();
+        inFlightTracker.begin();
+        CompletableFuture.runAsync(inFlightTracker::end, CompletableFuture.delayedExecutor(200, TimeUnit.MILLISECONDS));
+
+        manager.stop();
+
+        // acks of in-flight messages are sent on the container channels, so they must complete before stop
+        assertThat(inFlightAtStop.get()).isZero();
+        assertThat(inFlightTracker.isDraining()).isTrue();
+        assertThat(manager.isRunning()).isFalse();
+        assertThat(meterRegistry.timer("email.consumer.drain").count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldStopContainersWithoutWaiting_whenDrainTimesOut() {
+        ReflectionTestUtils.setField(manager, "drainTimeout", Duration.ofMillis(100));
+        inFlightTracker.begin();
+        long startNanos = System.nanoTime();
+
+        manager.stop();
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)).isLessThan(2000);
+        verify(container).setShutdownTimeout(0L);
+        verify(container).stop();
+        assertThat(inFlightTracker.getInFlight()).isEqualTo(1);
+        assertThat(manager.isRunning()).isFalse();
+        assertThat(meterRegistry.timer("email.consumer.drain").count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,64 @@
+package org.kunievakateryna.lifecycle;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InFlightTrackerTest {
+
+    private final InFlightTracker tracker = new InFlightTracker();
+
+    @Test
+    void shouldReturnImmediately_whenNothingInFlight() throws InterruptedException {
+        long startNanos = System.nanoTime();
+
+        boolean drained = tracker.awaitDrained(Duration.ofSeconds(5));
+
+        assertThat(drained).isTrue();
+        assertThat(elapsedMillis(startNanos)).isLessThan(1000);
+    }
+
+    @Test
+    void shouldWaitUntilLastWorkEnds() throws InterruptedException {
+        tracker.begin();
+        tracker.begin();
+        CompletableFuture.runAsync(tracker::end, CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS));
+        CompletableFuture.runAsync(tracker::end, CompletableFuture.delayedExecutor(200, TimeUnit.MILLISECONDS));
+        long startNanos = System.nanoTime();
+
+        boolean drained = tracker.awaitDrained(Duration.ofSeconds(5));
+
+        assertThat(drained).isTrue();
+        assertThat(tracker.getInFlight()).isZero();
+        assertThat(elapsedMillis(startNanos)).isBetween(150L, 4000L);
+    }
+
+    @Test
+    void shouldTimeOut_whenWorkDoesNotEnd() throws InterruptedException {
+        tracker.begin();
+        long startNanos = System.nanoTime();
+
+        boolean drained = tracker.awaitDrained(Duration.ofMillis(200));
+
+        assertThat(drained).isFalse();
+        assertThat(tracker.getInFlight()).isEqualTo(1);
+        assertThat(elapsedMillis(startNanos)).isBetween(150L, 4000L);
+    }
+
+    @Test
+    void shouldReportDraining_onlyAfterDrainingStarted() {
+        assertThat(tracker.isDraining()).isFalse();
+
+        tracker.startDraining();
+
+        assertThat(tracker.isDraining()).isTrue();
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
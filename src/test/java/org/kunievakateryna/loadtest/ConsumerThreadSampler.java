@@ -0,0 +1,83 @@
+package org.kunievakateryna.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically samples stack traces of the RabbitMQ consumer threads and classifies what each thread
+ * is doing by its top-most non-JDK frame. Shows whether consumers spend their time waiting for
+ * Elasticsearch, waiting for SMTP, idle waiting for deliveries, or running application code.
+ */
+public class ConsumerThreadSampler implements AutoCloseable {
+
+    public static final String ELASTICSEARCH = "elasticsearch";
+    public static final String SMTP = "smtp";
+    public static final String IDLE = "idle";
+    public static final String OTHER = "other";
+
+    private static final String CONSUMER_THREAD_NAME = "RabbitListenerEndpointContainer";
+
+    private final Map<String, Long> samples = new LinkedHashMap<>();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+    /**
+     * Starts sampling
+     *
+     * @param intervalMillis time between samples
+     */
+    public ConsumerThreadSampler(long intervalMillis) {
+        for (String state : new String[]{ELASTICSEARCH, SMTP, IDLE, OTHER}) {
+            samples.put(state, 0L);
+        }
+        executor.scheduleAtFixedRate(this::sample, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return number of samples per thread state
+     */
+    public synchronized Map<String, Long> getSamples() {
+        return new LinkedHashMap<>(samples);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private synchronized void sample() {
+        Thread.getAllStackTraces().forEach((thread, stack) -> {
+            if (thread.getName().contains(CONSUMER_THREAD_NAME)) {
+                samples.merge(classify(stack), 1L, Long::sum);
+            }
+        });
+    }
+
+    private static String classify(StackTraceElement[] stack) {
+        for (StackTraceElement frame : stack) {
+            String className = frame.getClassName();
+            if (className.startsWith("java.") || className.startsWith("jdk.") || className.startsWith("sun.")) {
+                continue;
+            }
+            if (className.startsWith("org.apache.http")
+                    || className.startsWith("org.elasticsearch")
+                    || className.startsWith("co.elastic")
+                    || className.startsWith("org.springframework.data.elasticsearch")
+                    || className.endsWith("EmailHistoryWriter")) {
+                return ELASTICSEARCH;
+            }
+            if (className.startsWith("org.eclipse.angus.mail")
+                    || className.startsWith("com.sun.mail")
+                    || className.startsWith("jakarta.mail")) {
+                return SMTP;
+            }
+            if (className.startsWith("org.springframework.amqp.rabbit.listener.BlockingQueueConsumer")) {
+                return IDLE;
+            }
+            return OTHER;
+        }
+        return OTHER;
+    }
+}
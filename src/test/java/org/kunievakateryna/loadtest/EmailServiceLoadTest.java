@@ -0,0 +1,294 @@
+package org.kunievakateryna.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestClassOrder;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.kunievakateryna.config.RabbitConfig;
+import org.kunievakateryna.config.TestElasticsearchConfiguration;
+import org.kunievakateryna.data.EmailHistory;
+import org.kunievakateryna.data.EmailStatus;
+import org.kunievakateryna.dto.EmailMessageDto;
+import org.kunievakateryna.repository.EmailHistoryRepository;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.query.Criteria;
+import org.springframework.data.elasticsearch.core.query.CriteriaQuery;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.RabbitMQContainer;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * End-to-end load test: publishes messages to the email exchange of a RabbitMQ container,
+ * lets the service store them in an Elasticsearch container and deliver them to a fake SMTP server,
+ * and writes throughput, latency, retry drain time and the share of time consumer threads spend
+ * waiting for Elasticsearch, SMTP or new messages to target/load-test-report.md.
+ * The same load runs twice, with blocking and with async email history writes
+ * ({@code app.elasticsearch.async.enabled}), and the report compares both runs side by side.
+ * Disabled by default, run with {@code mvn test -Pload-test}, parameters are listed in {@link LoadTestSettings}.
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+class EmailServiceLoadTest {
+
+    private static final String RABBITMQ_DOCKER_IMAGE = "rabbitmq:3-management-alpine";
+    private static final Path REPORT_FILE = Path.of("target", "load-test-report.md");
+    private static final long POLL_INTERVAL_MILLIS = 100;
+    private static final long SAMPLE_INTERVAL_MILLIS = 10;
+    private static final long NOT_DRAINED = -1;
+
+    private static final LoadTestSettings SETTINGS = LoadTestSettings.fromSystemProperties();
+    private static final RabbitMQContainer RABBITMQ = new RabbitMQContainer(RABBITMQ_DOCKER_IMAGE);
+    private static final List<LoadTestRun> RUNS = new ArrayList<>();
+    private static FakeSmtpServer smtpServer;
+
+    @BeforeAll
+    static void startInfrastructure() throws IOException {
+        RABBITMQ.start();
+        smtpServer = new FakeSmtpServer(SETTINGS.smtpLatencyMs(), SETTINGS.smtpFailureRate(), SETTINGS.seed());
+    }
+
+    @AfterAll
+    static void writeReportAndStopInfrastructure() throws IOException {
+        try {
+            LoadTestReport report = new LoadTestReport(SETTINGS, List.copyOf(RUNS));
+            report.writeTo(REPORT_FILE);
+            log.info("Load test finished, report written to {}\n{}", REPORT_FILE.toAbsolutePath(), report.toMarkdown());
+        } finally {
+            smtpServer.close();
+            RABBITMQ.stop();
+        }
+    }
+
+    @Nested
+    @Order(1)
+    @TestPropertySource(properties = "app.elasticsearch.async.enabled=false")
+    class BlockingHistoryWrites extends LoadRun {
+
+        BlockingHistoryWrites() {
+            super("blocking");
+        }
+    }
+
+    @Nested
+    @Order(2)
+    @TestPropertySource(properties = "app.elasticsearch.async.enabled=true")
+    class AsyncHistoryWrites extends LoadRun {
+
+        AsyncHistoryWrites() {
+            super("async");
+        }
+    }
+
+    /**
+     * One run of the load against a fresh application context, so every run gets its own Elasticsearch
+     * container and listener containers, while RabbitMQ and the fake SMTP server are shared
+     */
+    @SpringBootTest
+    @Import(TestElasticsearchConfiguration.class)
+    @DirtiesContext
+    abstract class LoadRun {
+
+        private final String historyWrites;
+
+        @Autowired
+        private RabbitTemplate rabbitTemplate;
+
+        @Autowired
+        private RabbitAdmin rabbitAdmin;
+
+        @Autowired
+        private ElasticsearchOperations operations;
+
+        @Autowired
+        private EmailHistoryRepository repository;
+
+        LoadRun(String historyWrites) {
+            this.historyWrites = historyWrites;
+        }
+
+        @DynamicPropertySource
+        static void properties(DynamicPropertyRegistry registry) {
+            registry.add("spring.rabbitmq.host", RABBITMQ::getHost);
+            registry.add("spring.rabbitmq.port", RABBITMQ::getAmqpPort);
+            registry.add("spring.rabbitmq.username", RABBITMQ::getAdminUsername);
+            registry.add("spring.rabbitmq.password", RABBITMQ::getAdminPassword);
+            registry.add("spring.rabbitmq.listener.simple.concurrency", SETTINGS::consumers);
+            registry.add("spring.mail.host", () -> "localhost");
+            registry.add("spring.mail.port", () -> smtpServer.getPort());
+            registry.add("spring.mail.username", () -> "");
+            registry.add("spring.mail.password", () -> "");
+            registry.add("app.scheduling.retry-delay", SETTINGS::retryDelayMs);
+            registry.add("app.scheduling.initial-delay", SETTINGS::retryDelayMs);
+        }
+
+        @Test
+        void shouldDeliverAllMessages() {
+            smtpServer.reset();
+            repository.deleteAll();
+            rabbitAdmin.initialize();
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SETTINGS.timeoutSeconds());
+            long[] publishedAt = new long[SETTINGS.messages()];
+
+            ConsumerThreadSampler sampler = new ConsumerThreadSampler(SAMPLE_INTERVAL_MILLIS);
+            long startedAt = System.nanoTime();
+            publish(publishedAt, startedAt);
+            long publishedUntil = System.nanoTime();
+
+            awaitDelivered(deadline);
+            sampler.close();
+            long retriesDrainedAt = awaitNoErrors(deadline);
+
+            LoadTestRun run = buildRun(
+                    publishedAt,
+                    startedAt,
+                    publishedUntil,
+                    retriesDrainedAt,
+                    sampler.getSamples()
+            );
+            RUNS.add(run);
+
+            assertThat(run.delivered()).isEqualTo(SETTINGS.messages());
+            assertThat(run.retriesDrained())
+                    .as("emails left in ERROR or PENDING status after %d s with %s history writes",
+                            SETTINGS.timeoutSeconds(), historyWrites)
+                    .isTrue();
+        }
+
+        /**
+         * Publishes all messages at the configured rate
+         */
+        private void publish(long[] publishedAt, long startedAt) {
+            Random random = new Random(SETTINGS.seed());
+            long intervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, SETTINGS.ratePerSecond());
+
+            for (int i = 0; i < publishedAt.length; i++) {
+                long waitNanos = startedAt + i * intervalNanos - System.nanoTime();
+                if (waitNanos > 0) {
+                    LockSupport.parkNanos(waitNanos);
+                }
+
+                EmailMessageDto message = new EmailMessageDto(
+                        "user-" + i + "@loadtest.local",
+                        subject(i),
+                        body(random)
+                );
+                publishedAt[i] = System.nanoTime();
+                rabbitTemplate.convertAndSend(RabbitConfig.EXCHANGE_EMAIL_NOTIFICATIONS, "", message);
+            }
+        }
+
+        private void awaitDelivered(long deadline) {
+            while (smtpServer.getDeliveredAtNanos().size() < SETTINGS.messages() && System.nanoTime() < deadline) {
+                sleep();
+            }
+        }
+
+        /**
+         * Waits until the retry scheduler has resent every failed email
+         *
+         * @return time when no email was left in ERROR or PENDING status, or {@link EmailServiceLoadTest#NOT_DRAINED} on timeout
+         */
+        private long awaitNoErrors(long deadline) {
+            while (countByStatus(EmailStatus.ERROR) + countByStatus(EmailStatus.PENDING) > 0) {
+                if (System.nanoTime() >= deadline) {
+                    return NOT_DRAINED;
+                }
+                sleep();
+            }
+            return System.nanoTime();
+        }
+
+        private long countByStatus(EmailStatus status) {
+            return operations.count(new CriteriaQuery(new Criteria("status").is(status)), EmailHistory.class);
+        }
+
+        private LoadTestRun buildRun(
+                long[] publishedAt,
+                long startedAt,
+                long publishedUntil,
+                long retriesDrainedAt,
+                Map<String, Long> consumerThreadSamples
+        ) {
+            Map<String, Long> deliveredAt = smtpServer.getDeliveredAtNanos();
+            long[] latenciesMillis = new long[publishedAt.length];
+            long lastDeliveredAt = startedAt;
+            int delivered = 0;
+
+            for (int i = 0; i < publishedAt.length; i++) {
+                Long at = deliveredAt.get(subject(i));
+                if (at != null) {
+                    latenciesMillis[delivered++] = TimeUnit.NANOSECONDS.toMillis(at - publishedAt[i]);
+                    lastDeliveredAt = Math.max(lastDeliveredAt, at);
+                }
+            }
+
+            return new LoadTestRun(
+                    historyWrites,
+                    publishedAt.length,
+                    delivered,
+                    smtpServer.getTotalAttempts(),
+                    seconds(publishedUntil - startedAt),
+                    seconds(lastDeliveredAt - startedAt),
+                    Arrays.copyOf(latenciesMillis, delivered),
+                    retriesDrainedAt == NOT_DRAINED
+                            ? LoadTestRun.NOT_DRAINED
+                            : seconds(retriesDrainedAt - publishedUntil),
+                    consumerThreadSamples
+            );
+        }
+    }
+
+    private static String subject(int index) {
+        return "load-" + index;
+    }
+
+    /**
+     * Generates a body of random lowercase words, so it is as compressible as real text
+     */
+    private static String body(Random random) {
+        StringBuilder body = new StringBuilder(SETTINGS.bodySize());
+        while (body.length() < SETTINGS.bodySize()) {
+            int wordLength = 2 + random.nextInt(8);
+            for (int i = 0; i < wordLength; i++) {
+                body.append((char) ('a' + random.nextInt(26)));
+            }
+            body.append(' ');
+        }
+        body.setLength(SETTINGS.bodySize());
+        return body.toString();
+    }
+
+    private static double seconds(long nanos) {
+        return Math.max(nanos, 1) / 1_000_000_000.0;
+    }
+
+    private static void sleep() {
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(POLL_INTERVAL_MILLIS));
+    }
+}
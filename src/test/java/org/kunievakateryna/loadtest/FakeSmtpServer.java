@@ -0,0 +1,187 @@
+package org.kunievakateryna.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal in-process SMTP server used as a stand-in for the real mail server in load tests.
+ * Every DATA command is delayed by the configured latency and rejected with a transient error
+ * at the configured failure rate. Failure decisions depend only on the seed, the subject and
+ * the attempt number, so a run can be reproduced regardless of thread interleaving.
+ */
+@Slf4j
+public class FakeSmtpServer implements AutoCloseable {
+
+    private static final String SUBJECT_HEADER = "Subject: ";
+
+    private final long latencyMillis;
+    private final double failureRate;
+    private final long seed;
+
+    private final Map<String, Integer> attemptsBySubject = new ConcurrentHashMap<>();
+    private final Map<String, Long> deliveredAtNanos = new ConcurrentHashMap<>();
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private final ExecutorService executor = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "fake-smtp-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ServerSocket serverSocket;
+
+    /**
+     * Starts the server on a random free port
+     *
+     * @param latencyMillis delay applied to every message before it is accepted or rejected
+     * @param failureRate   probability of rejecting a message with a transient error
+     * @param seed          seed for failure decisions
+     * @throws IOException if the server socket cannot be opened
+     */
+    public FakeSmtpServer(long latencyMillis, double failureRate, long seed) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.failureRate = failureRate;
+        this.seed = seed;
+        this.serverSocket = new ServerSocket(0);
+
+        executor.submit(this::acceptConnections);
+    }
+
+    /**
+     * @return port the server listens on
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return time of the first successful delivery per subject, in System.nanoTime() units
+     */
+    public Map<String, Long> getDeliveredAtNanos() {
+        return deliveredAtNanos;
+    }
+
+    /**
+     * @return total number of DATA commands received, including rejected ones
+     */
+    public int getTotalAttempts() {
+        return attemptsBySubject.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    /**
+     * Forgets all attempts and deliveries, so the next run starts from a clean state
+     */
+    public void reset() {
+        attemptsBySubject.clear();
+        deliveredAtNanos.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                executor.submit(() -> handleConnection(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    log.warn("Fake SMTP accept failed: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void handleConnection(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             OutputStream out = socket.getOutputStream()) {
+
+            reply(out, "220 fake-smtp ready");
+
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() < 4 ? line.toUpperCase() : line.substring(0, 4).toUpperCase();
+
+                switch (command) {
+                    case "EHLO", "HELO", "MAIL", "RCPT", "RSET", "NOOP" -> reply(out, "250 OK");
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        reply(out, receiveMessage(in));
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Fake SMTP connection closed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Reads message data up to the terminating dot and decides whether to accept it
+     *
+     * @param in connection input
+     * @return SMTP reply for the message
+     * @throws IOException if reading fails
+     */
+    private String receiveMessage(BufferedReader in) throws IOException {
+        String subject = null;
+        String line;
+        while ((line = in.readLine()) != null && !line.equals(".")) {
+            if (subject == null && line.startsWith(SUBJECT_HEADER)) {
+                subject = line.substring(SUBJECT_HEADER.length()).trim();
+            }
+        }
+
+        sleep(latencyMillis);
+
+        String key = subject == null ? "" : subject;
+        int attempt = attemptsBySubject.merge(key, 1, Integer::sum);
+        if (shouldFail(key, attempt)) {
+            return "451 4.3.0 Injected failure";
+        }
+
+        deliveredAtNanos.putIfAbsent(key, System.nanoTime());
+        return "250 OK";
+    }
+
+    private boolean shouldFail(String subject, int attempt) {
+        return failureRate > 0
+                && new SplittableRandom(seed ^ (31L * subject.hashCode() + attempt)).nextDouble() < failureRate;
+    }
+
+    private static void reply(OutputStream out, String reply) throws IOException {
+        out.write((reply + "\r\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
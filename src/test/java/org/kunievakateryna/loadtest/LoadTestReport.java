@@ -0,0 +1,101 @@
+package org.kunievakateryna.loadtest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Load test report comparing runs with the same settings side by side, rendered as Markdown
+ *
+ * @param settings parameters shared by all runs
+ * @param runs     results, one column per run
+ */
+public record LoadTestReport(LoadTestSettings settings, List<LoadTestRun> runs) {
+
+    /**
+     * @return the report as Markdown
+     */
+    public String toMarkdown() {
+        StringBuilder report = new StringBuilder();
+        report.append("# Email service load test report\n\n");
+        report.append("## Settings\n\n");
+        report.append("| Parameter | Value |\n|-----------|-------|\n");
+        row(report, "messages", settings.messages());
+        row(report, "target rate, msg/s", settings.ratePerSecond());
+        row(report, "body size, chars", settings.bodySize());
+        row(report, "consumers", settings.consumers());
+        row(report, "SMTP latency, ms", settings.smtpLatencyMs());
+        row(report, "SMTP failure rate", settings.smtpFailureRate());
+        row(report, "retry delay, ms", settings.retryDelayMs());
+        row(report, "seed", settings.seed());
+
+        report.append("\n## Results\n\n");
+        header(report, "Metric");
+        row(report, "published", LoadTestRun::published);
+        row(report, "delivered", LoadTestRun::delivered);
+        row(report, "SMTP attempts", LoadTestRun::smtpAttempts);
+        row(report, "publish rate, msg/s", run -> format(run.publishRate()));
+        row(report, "end-to-end throughput, msg/s", run -> format(run.throughput()));
+        row(report, "latency p50, ms", run -> run.latencyPercentile(50));
+        row(report, "latency p99, ms", run -> run.latencyPercentile(99));
+        row(report, "latency max, ms", run -> run.latencyPercentile(100));
+        row(report, "retry drain time, s", run -> run.retriesDrained() ? format(run.retryDrainSeconds()) : "not drained");
+
+        report.append("\n## Consumer threads\n\n");
+        report.append("Share of consumer thread stack samples per state. With blocking history writes consumers ")
+                .append("wait for Elasticsearch on every message, with async writes that time should move to SMTP or idle.\n\n");
+        header(report, "State");
+        for (String state : List.of(
+                ConsumerThreadSampler.ELASTICSEARCH,
+                ConsumerThreadSampler.SMTP,
+                ConsumerThreadSampler.IDLE,
+                ConsumerThreadSampler.OTHER
+        )) {
+            row(report, state, run -> format(run.consumerThreadShare(state)) + " %");
+        }
+
+        return report.toString();
+    }
+
+    /**
+     * Writes the report as Markdown to the given file
+     *
+     * @param file target file
+     * @throws IOException if the file cannot be written
+     */
+    public void writeTo(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, toMarkdown());
+    }
+
+    /**
+     * Appends a table header with a column per run
+     */
+    private void header(StringBuilder report, String name) {
+        report.append("| ").append(name).append(" |");
+        runs.forEach(run -> report.append(' ').append(run.historyWrites()).append(" history writes |"));
+        report.append("\n|--------|");
+        runs.forEach(run -> report.append("--------|"));
+        report.append('\n');
+    }
+
+    /**
+     * Appends a table row with the value of every run
+     */
+    private void row(StringBuilder report, String name, Function<LoadTestRun, Object> value) {
+        report.append("| ").append(name).append(" |");
+        runs.forEach(run -> report.append(' ').append(value.apply(run)).append(" |"));
+        report.append('\n');
+    }
+
+    private static void row(StringBuilder report, String name, Object value) {
+        report.append("| ").append(name).append(" | ").append(value).append(" |\n");
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+}
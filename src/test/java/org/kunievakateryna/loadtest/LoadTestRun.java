@@ -0,0 +1,81 @@
+package org.kunievakateryna.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Result of a single load test run
+ *
+ * @param historyWrites         how email history was written in this run, "blocking" or "async"
+ * @param published             number of published messages
+ * @param delivered             number of messages delivered to SMTP at least once
+ * @param smtpAttempts          number of SMTP delivery attempts, including rejected ones
+ * @param publishSeconds        time spent publishing
+ * @param totalSeconds          time from first publish to last delivery
+ * @param latenciesMillis       end-to-end latency of every delivered message, publish to first successful delivery
+ * @param retryDrainSeconds     time from the end of publishing until no email was left in ERROR status,
+ *                              {@link #NOT_DRAINED} if that did not happen before the timeout
+ * @param consumerThreadSamples number of consumer thread stack samples per state, see {@link ConsumerThreadSampler}
+ */
+public record LoadTestRun(
+        String historyWrites,
+        int published,
+        int delivered,
+        int smtpAttempts,
+        double publishSeconds,
+        double totalSeconds,
+        long[] latenciesMillis,
+        double retryDrainSeconds,
+        Map<String, Long> consumerThreadSamples
+) {
+
+    /** Value of retryDrainSeconds when retries did not finish before the timeout */
+    public static final double NOT_DRAINED = -1;
+
+    /**
+     * @return true if every failed email was resent before the timeout
+     */
+    public boolean retriesDrained() {
+        return retryDrainSeconds != NOT_DRAINED;
+    }
+
+    /**
+     * @return achieved publish rate, in messages per second
+     */
+    public double publishRate() {
+        return published / publishSeconds;
+    }
+
+    /**
+     * @return delivered messages per second, from first publish to last delivery
+     */
+    public double throughput() {
+        return delivered / totalSeconds;
+    }
+
+    /**
+     * Nearest-rank percentile of the end-to-end latency
+     *
+     * @param percentile percentile between 1 and 100
+     * @return latency in ms, 0 if nothing was delivered
+     */
+    public long latencyPercentile(int percentile) {
+        if (latenciesMillis.length == 0) {
+            return 0;
+        }
+        long[] sorted = latenciesMillis.clone();
+        Arrays.sort(sorted);
+
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    /**
+     * @param state consumer thread state, see {@link ConsumerThreadSampler}
+     * @return share of consumer thread samples in the given state, in percent
+     */
+    public double consumerThreadShare(String state) {
+        long total = consumerThreadSamples.values().stream().mapToLong(Long::longValue).sum();
+        return total == 0 ? 0 : 100.0 * consumerThreadSamples.getOrDefault(state, 0L) / total;
+    }
+}
@@ -0,0 +1,45 @@
+package org.kunievakateryna.loadtest;
+
+/**
+ * Load test parameters, read from system properties so they can be passed on the Maven command line,
+ * e.g. {@code mvn test -Pload-test -Dloadtest.messages=50000 -Dloadtest.rate=1000}
+ *
+ * @param messages         number of messages to publish
+ * @param ratePerSecond    target publish rate
+ * @param bodySize         size of every message body in characters
+ * @param consumers        number of concurrent RabbitMQ consumers
+ * @param smtpLatencyMs    latency the fake SMTP server adds to every message
+ * @param smtpFailureRate  probability that the fake SMTP server rejects a delivery attempt
+ * @param retryDelayMs     delay between runs of the retry scheduler
+ * @param timeoutSeconds   maximum time to wait for all messages to be delivered
+ * @param seed             seed for generated bodies and injected failures
+ */
+public record LoadTestSettings(
+        int messages,
+        int ratePerSecond,
+        int bodySize,
+        int consumers,
+        long smtpLatencyMs,
+        double smtpFailureRate,
+        long retryDelayMs,
+        long timeoutSeconds,
+        long seed
+) {
+
+    /**
+     * @return settings from system properties, with defaults for a short local run
+     */
+    public static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Integer.getInteger("loadtest.messages", 2000),
+                Integer.getInteger("loadtest.rate", 200),
+                Integer.getInteger("loadtest.body-size", 2048),
+                Integer.getInteger("loadtest.consumers", 4),
+                Long.getLong("loadtest.smtp-latency-ms", 20),
+                Double.parseDouble(System.getProperty("loadtest.smtp-failure-rate", "0.05")),
+                Long.getLong("loadtest.retry-delay-ms", 2000),
+                Long.getLong("loadtest.timeout-seconds", 600),
+                Long.getLong("loadtest.seed", 42)
+        );
+    }
+}
@@ -0,0 +1,60 @@
+package org.kunievakateryna.messaging;
+
+import org.junit.jupiter.api.Test;
+import org.kunievakateryna.dto.EmailMessageDto;
+import org.kunievakateryna.lifecycle.InFlightTracker;
+import org.kunievakateryna.repository.EmailHistoryWriter;
+import org.kunievakateryna.service.EmailContentStore;
+import org.kunievakateryna.service.EmailService;
+import org.kunievakateryna.service.RecipientSuppressionService;
+import org.kunievakateryna.service.ScheduledEmailDispatcher;
+import org.springframework.amqp.ImmediateRequeueAmqpException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class EmailMessageListenerDrainTest {
+
+    private final EmailHistoryWriter historyWriter = mock(EmailHistoryWriter.class);
+    private final EmailService emailService = mock(EmailService.class);
+    private final InFlightTracker inFlightTracker = new InFlightTracker();
+
+    private final EmailMessageListener listener = new EmailMessageListener(
+            historyWriter,
+            emailService,
+            inFlightTracker,
+            mock(RecipientSuppressionService.class),
+            mock(EmailContentStore.class),
+            mock(ScheduledEmailDispatcher.class)
+    );
+
+    @Test
+    void shouldRequeueMessageWithoutBlocking_whenReceivedWhileDraining() {
+        inFlightTracker.startDraining();
+
+        CompletableFuture<Void> received = listener.receiveMessage(new EmailMessageDto("late@example.com", "Late", "Body"));
+
+        // a failed future is nacked with requeue, the consumer thread returns immediately
+        assertThat(received).isCompletedExceptionally();
+        assertThatThrownBy(received::join).hasCauseInstanceOf(ImmediateRequeueAmqpException.class);
+        assertThat(inFlightTracker.getInFlight()).isZero();
+        verifyNoInteractions(emailService, historyWriter);
+    }
+
+    @Test
+    void shouldProcessMessage_whenNotDraining() {
+        when(historyWriter.saveAfter(any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(historyWriter.saveAttempt(any(), any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        CompletableFuture<Void> processed = listener.receiveMessage(
+                new EmailMessageDto("now@example.com", "Now", "Body"));
+
+        assertThat(processed).succeedsWithin(Duration.ofSeconds(1));
+        verify(emailService).sendSimpleEmail("now@example.com", "Now", "Body");
+        assertThat(inFlightTracker.getInFlight()).isZero();
+    }
+}
@@ -5,8 +5,11 @@ import org.junit.jupiter.api.Test;
 import org.kunievakateryna.config.TestElasticsearchConfiguration;
 import org.kunievakateryna.data.EmailHistory;
 import org.kunievakateryna.data.EmailStatus;
+import org.kunievakateryna.data.SuppressionReason;
 import org.kunievakateryna.dto.EmailMessageDto;
 import org.kunievakateryna.repository.EmailHistoryRepository;
+import org.kunievakateryna.repository.EmailHistoryWriter;
+import org.kunievakateryna.service.RecipientSuppressionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
@@ -14,8 +17,12 @@ import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.StreamSupport;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -32,9 +39,15 @@ class EmailMessageListenerTest {
     @Autowired
     private EmailHistoryRepository repository;
 
+    @Autowired
+    private RecipientSuppressionService suppressionService;
+
     @MockBean
     private JavaMailSender mailSender;
 
+    @SpyBean
+    private EmailHistoryWriter historyWriter;
+
     @BeforeEach
     void clean() {
         repository.deleteAll();
@@ -50,7 +63,7 @@ class EmailMessageListenerTest {
                 "Hello"
         );
 
-        listener.receiveMessage(dto);
+        listener.receiveMessage(dto).join();
 
         List<EmailHistory> all =
                 StreamSupport
@@ -78,7 +91,7 @@ class EmailMessageListenerTest {
                 "Fail body"
         );
 
-        listener.receiveMessage(dto);
+        listener.receiveMessage(dto).join();
 
         EmailHistory history = StreamSupport
                 .stream(repository.findAll().spliterator(), false)
@@ -91,4 +104,91 @@ class EmailMessageListenerTest {
                 .contains("MailSendException")
                 .contains("SMTP down");
     }
+
+    @Test
+    void shouldSaveEmailAsSuppressed_whenRecipientIsSuppressed() {
+        suppressionService.suppress("Bounced@Example.com", SuppressionReason.HARD_BOUNCE);
+
+        EmailMessageDto dto = new EmailMessageDto(
+                "bounced@example.com",
+                "Suppressed subject",
+                "Suppressed body"
+        );
+
+        listener.receiveMessage(dto).join();
+
+        EmailHistory history = StreamSupport
+                .stream(repository.findAll().spliterator(), false)
+                .findFirst()
+                .orElseThrow();
+
+        assertThat(history.getStatus()).isEqualTo(EmailStatus.SUPPRESSED);
+        assertThat(history.getAttempts()).isZero();
+        verify(mailSender, never()).send(any(SimpleMailMessage.class));
+    }
+
+    @Test
+    void shouldSaveEmailAsScheduled_whenSendAtIsInFuture() {
+        EmailMessageDto dto = new EmailMessageDto(
+                "later@example.com",
+                "Reminder",
+                "Reminder body",
+                LocalDateTime.now().plusDays(1)
+        );
+
+        listener.receiveMessage(dto).join();
+
+        EmailHistory history = StreamSupport
+                .stream(repository.findAll().spliterator(), false)
+                .findFirst()
+                .orElseThrow();
+
+        assertThat(history.getStatus()).isEqualTo(EmailStatus.SCHEDULED);
+        assertThat(history.getSendAt()).isNotNull();
+        assertThat(history.getAttempts()).isZero();
+        verify(mailSender, never()).send(any(SimpleMailMessage.class));
+    }
+
+    @Test
+    void shouldCompleteAndSendOnce_whenHistoryWritesFailAfterSending() {
+        doNothing().when(mailSender).send(any(SimpleMailMessage.class));
+        failHistoryWrites();
+
+        EmailMessageDto dto = new EmailMessageDto(
+                "test@example.com",
+                "Sent without history",
+                "Hello"
+        );
+
+        CompletableFuture<Void> processed = listener.receiveMessage(dto);
+
+        // a normally completed future is acknowledged, so the message is not redelivered and resent
+        assertThat(processed).succeedsWithin(Duration.ofSeconds(10));
+        verify(mailSender, times(1)).send(any(SimpleMailMessage.class));
+    }
+
+    @Test
+    void shouldFail_whenHistoryWritesFailAndEmailWasNotSent() {
+        doThrow(new MailSendException("SMTP down"))
+                .when(mailSender)
+                .send(any(SimpleMailMessage.class));
+        failHistoryWrites();
+
+        EmailMessageDto dto = new EmailMessageDto(
+                "test@example.com",
+                "Not sent, no history",
+                "Hello"
+        );
+
+        CompletableFuture<Void> processed = listener.receiveMessage(dto);
+
+        // a failed future is requeued, which is safe because nothing was sent
+        assertThat(processed).failsWithin(Duration.ofSeconds(10));
+    }
+
+    private void failHistoryWrites() {
+        CompletableFuture<Void> failed = CompletableFuture.failedFuture(new IllegalStateException("Elasticsearch down"));
+        doReturn(failed).when(historyWriter).save(any());
+        doReturn(failed).when(historyWriter).saveAfter(any(), any());
+    }
 }
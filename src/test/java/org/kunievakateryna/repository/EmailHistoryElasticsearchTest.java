@@ -11,6 +11,7 @@ import org.springframework.context.annotation.Import;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -96,4 +97,114 @@ class EmailHistoryElasticsearchTest {
         assertThat(updated.getErrorMessage()).isNull();
         assertThat(updated.getLastAttemptTime()).isNotNull();
     }
+
+    @Test
+    void shouldIncrementAttemptsAtomically() {
+        EmailHistory history = saveHistory(EmailStatus.ERROR, 1);
+
+        repository.incrementAttempts(history.getId());
+        repository.incrementAttempts(List.of(history.getId()));
+
+        EmailHistory updated =
+                repository.findById(history.getId()).orElseThrow();
+
+        assertThat(updated.getAttempts()).isEqualTo(3);
+        assertThat(updated.getLastAttemptTime()).isNotNull();
+        assertThat(updated.getContent()).isEqualTo("Body");
+    }
+
+    @Test
+    void shouldReturnFailedIds_whenBulkUpdateFailsForSomeDocuments() {
+        EmailHistory history = saveHistory(EmailStatus.ERROR, 1);
+        String missingId = UUID.randomUUID().toString();
+
+        Set<String> failedIds = repository.incrementAttempts(List.of(history.getId(), missingId));
+
+        assertThat(failedIds).containsExactly(missingId);
+        assertThat(repository.findById(history.getId()).orElseThrow().getAttempts()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldTransitionStatus_onlyWhenPreconditionHolds() {
+        EmailHistory history = saveHistory(EmailStatus.ERROR, 1);
+
+        boolean transitioned =
+                repository.transitionStatus(history.getId(), EmailStatus.ERROR, EmailStatus.SENT);
+        boolean transitionedAgain =
+                repository.transitionStatus(history.getId(), EmailStatus.ERROR, EmailStatus.PENDING);
+
+        assertThat(transitioned).isTrue();
+        assertThat(transitionedAgain).isFalse();
+        assertThat(repository.findById(history.getId()).orElseThrow().getStatus())
+                .isEqualTo(EmailStatus.SENT);
+    }
+
+    @Test
+    void shouldTransitionStatusInBulk() {
+        EmailHistory error = saveHistory(EmailStatus.ERROR, 1);
+        EmailHistory sent = saveHistory(EmailStatus.SENT, 1);
+
+        Set<String> failedIds = repository.transitionStatus(
+                List.of(error.getId(), sent.getId()),
+                EmailStatus.ERROR,
+                EmailStatus.PENDING
+        );
+
+        assertThat(failedIds).isEmpty();
+
+        assertThat(repository.findByStatus(EmailStatus.PENDING))
+                .extracting(EmailHistory::getId)
+                .containsExactly(error.getId());
+        assertThat(repository.findByStatus(EmailStatus.SENT))
+                .extracting(EmailHistory::getId)
+                .containsExactly(sent.getId());
+    }
+
+    @Test
+    void shouldSetAndClearError() {
+        EmailHistory history = saveHistory(EmailStatus.ERROR, 1);
+
+        repository.setError(history.getId(), "SMTP down");
+        assertThat(repository.findById(history.getId()).orElseThrow().getErrorMessage())
+                .isEqualTo("SMTP down");
+
+        repository.setError(history.getId(), null);
+        assertThat(repository.findById(history.getId()).orElseThrow().getErrorMessage())
+                .isNull();
+    }
+
+    @Test
+    void shouldRecordAttemptInSingleUpdate() {
+        EmailHistory history = saveHistory(EmailStatus.PENDING, 0);
+
+        boolean recorded = repository.recordAttempt(
+                history.getId(),
+                EmailStatus.PENDING,
+                EmailStatus.ERROR,
+                "SMTP down"
+        );
+
+        EmailHistory updated =
+                repository.findById(history.getId()).orElseThrow();
+
+        assertThat(recorded).isTrue();
+        assertThat(updated.getStatus()).isEqualTo(EmailStatus.ERROR);
+        assertThat(updated.getAttempts()).isEqualTo(1);
+        assertThat(updated.getErrorMessage()).isEqualTo("SMTP down");
+        assertThat(updated.getLastAttemptTime()).isNotNull();
+    }
+
+    private EmailHistory saveHistory(EmailStatus status, int attempts) {
+        EmailHistory history = EmailHistory.builder()
+                .id(UUID.randomUUID().toString())
+                .recipient("atomic@test.com")
+                .subject("Atomic update")
+                .content("Body")
+                .status(status)
+                .attempts(attempts)
+                .createdAt(LocalDateTime.now())
+                .build();
+
+        return repository.save(history);
+    }
 }
@@ -0,0 +1,144 @@
+package org.kunievakateryna.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kunievakateryna.config.TestElasticsearchConfiguration;
+import org.kunievakateryna.data.EmailBody;
+import org.kunievakateryna.data.EmailHistory;
+import org.kunievakateryna.data.EmailStatus;
+import org.kunievakateryna.data.SuppressionReason;
+import org.kunievakateryna.dto.EmailMessageDto;
+import org.kunievakateryna.messaging.EmailMessageListener;
+import org.kunievakateryna.repository.EmailBodyRepository;
+import org.kunievakateryna.repository.EmailHistoryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.StreamSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+
+@SpringBootTest(properties = {
+        "app.content.archive.enabled=true",
+        "app.content.archive.cache-size=1"
+})
+@Import(TestElasticsearchConfiguration.class)
+class EmailContentStoreTest {
+
+    @Autowired
+    private EmailContentStore contentStore;
+
+    @SpyBean
+    private EmailBodyRepository bodyRepository;
+
+    @Autowired
+    private EmailHistoryRepository historyRepository;
+
+    @Autowired
+    private EmailMessageListener listener;
+
+    @Autowired
+    private RecipientSuppressionService suppressionService;
+
+    @MockBean
+    private JavaMailSender mailSender;
+
+    @BeforeEach
+    void clean() {
+        bodyRepository.deleteAll();
+        historyRepository.deleteAll();
+    }
+
+    @Test
+    void shouldArchiveIdenticalBodiesOnce() {
+        String body = "<html><body>Newsletter</body></html>".repeat(100);
+        EmailHistory first = new EmailHistory();
+        EmailHistory second = new EmailHistory();
+
+        contentStore.store(first, body).join();
+        contentStore.store(second, body).join();
+
+        List<EmailBody> archived = StreamSupport
+                .stream(bodyRepository.findAll().spliterator(), false)
+                .toList();
+
+        assertThat(archived).hasSize(1);
+        assertThat(archived.get(0).getData().length()).isLessThan(body.length());
+        assertThat(first.getContent()).isNull();
+        assertThat(first.getContentHash())
+                .isEqualTo(second.getContentHash())
+                .isEqualTo(archived.get(0).getId());
+    }
+
+    @Test
+    void shouldLoadArchivedBody_whenEvictedFromCache() {
+        EmailHistory history = new EmailHistory();
+        EmailHistory other = new EmailHistory();
+
+        contentStore.store(history, "Archived body").join();
+        contentStore.store(other, "Body that evicts the first one").join();
+
+        assertThat(contentStore.load(history)).isEqualTo("Archived body");
+        assertThat(contentStore.load(other)).isEqualTo("Body that evicts the first one");
+    }
+
+    @Test
+    void shouldStoreUncompressedSizeInBytes() {
+        String body = "Привіт, світе";
+        EmailHistory history = new EmailHistory();
+
+        contentStore.store(history, body).join();
+
+        EmailBody archived = bodyRepository.findById(history.getContentHash()).orElseThrow();
+        assertThat(archived.getSize()).isEqualTo(body.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    @Test
+    void shouldNotArchiveBody_whenRecipientIsSuppressed() {
+        suppressionService.suppress("archive-bounced@example.com", SuppressionReason.HARD_BOUNCE);
+
+        listener.receiveMessage(new EmailMessageDto(
+                "archive-bounced@example.com",
+                "Suppressed subject",
+                "Suppressed body"
+        )).join();
+
+        EmailHistory history = StreamSupport
+                .stream(historyRepository.findAll().spliterator(), false)
+                .findFirst()
+                .orElseThrow();
+
+        assertThat(history.getStatus()).isEqualTo(EmailStatus.SUPPRESSED);
+        assertThat(history.getContent()).isEqualTo("Suppressed body");
+        assertThat(history.getContentHash()).isNull();
+        assertThat(bodyRepository.count()).isZero();
+    }
+
+    @Test
+    void shouldNotWriteHistory_whenBodyArchiveWriteFails() {
+        doThrow(new IllegalStateException("Elasticsearch down")).when(bodyRepository).save(any(EmailBody.class));
+        doThrow(new MailSendException("SMTP down")).when(mailSender).send(any(SimpleMailMessage.class));
+
+        CompletableFuture<Void> processed = listener.receiveMessage(new EmailMessageDto(
+                "archive-failed@example.com",
+                "Archive failed",
+                "Body that could not be archived"
+        ));
+
+        // the message is requeued, and no ERROR record points the retry scheduler to a missing body
+        assertThat(processed).failsWithin(Duration.ofSeconds(10));
+        assertThat(historyRepository.count()).isZero();
+    }
+}
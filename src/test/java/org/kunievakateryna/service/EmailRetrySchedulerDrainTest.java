@@ -0,0 +1,100 @@
+package org.kunievakateryna.service;
+
+import org.junit.jupiter.api.Test;
+import org.kunievakateryna.data.EmailHistory;
+import org.kunievakateryna.data.EmailStatus;
+import org.kunievakateryna.lifecycle.InFlightTracker;
+import org.kunievakateryna.repository.EmailHistoryRepository;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class EmailRetrySchedulerDrainTest {
+
+    private final EmailHistoryRepository repository = mock(EmailHistoryRepository.class);
+    private final EmailService emailService = mock(EmailService.class);
+    private final InFlightTracker inFlightTracker = new InFlightTracker();
+    private final RecipientSuppressionService suppressionService = mock(RecipientSuppressionService.class);
+    private final EmailContentStore contentStore = mock(EmailContentStore.class);
+
+    private final EmailRetryScheduler scheduler = new EmailRetryScheduler(
+            repository,
+            emailService,
+            inFlightTracker,
+            suppressionService,
+            contentStore
+    );
+
+    @Test
+    void shouldNotResend_whenDrainingStartedBeforeRun() {
+        when(repository.findByStatus(EmailStatus.ERROR)).thenReturn(List.of(failedEmail("1"), failedEmail("2")));
+        inFlightTracker.startDraining();
+
+        scheduler.retryFailedEmails();
+
+        verifyNoInteractions(emailService);
+        verify(repository, never()).recordAttempt(anyString(), any(), any(), any());
+    }
+
+    @Test
+    void shouldStopResending_whenDrainingStartsDuringRun() {
+        when(repository.findByStatus(EmailStatus.ERROR)).thenReturn(List.of(failedEmail("1"), failedEmail("2")));
+        when(repository.recordAttempt(anyString(), any(), any(), any())).thenReturn(true);
+        doAnswer(invocation -> {
+            inFlightTracker.startDraining();
+            return null;
+        }).when(emailService).sendSimpleEmail(anyString(), anyString(), any());
+
+        scheduler.retryFailedEmails();
+
+        verify(emailService, times(1)).sendSimpleEmail(anyString(), anyString(), any());
+        verify(repository).recordAttempt("1", EmailStatus.ERROR, EmailStatus.SENT, null);
+        verify(repository, never()).recordAttempt(eq("2"), any(), any(), any());
+    }
+
+    @Test
+    void shouldTrackSuppressedWrite_asInFlight() {
+        when(repository.findByStatus(EmailStatus.ERROR)).thenReturn(List.of(failedEmail("1")));
+        when(suppressionService.isSuppressed("1@example.com")).thenReturn(true);
+        AtomicInteger inFlightDuringWrite = new AtomicInteger(-1);
+        doAnswer(invocation -> {
+            inFlightDuringWrite.set(inFlightTracker.getInFlight());
+            return true;
+        }).when(repository).transitionStatus("1", EmailStatus.ERROR, EmailStatus.SUPPRESSED);
+
+        scheduler.retryFailedEmails();
+
+        assertThat(inFlightDuringWrite.get()).isEqualTo(1);
+        assertThat(inFlightTracker.getInFlight()).isZero();
+        verifyNoInteractions(emailService);
+    }
+
+    @Test
+    void shouldResendRemainingEmails_whenSuppressionLookupFails() {
+        when(repository.findByStatus(EmailStatus.ERROR)).thenReturn(List.of(failedEmail("1"), failedEmail("2")));
+        when(suppressionService.isSuppressed("1@example.com")).thenThrow(new IllegalStateException("Elasticsearch down"));
+        when(repository.recordAttempt(anyString(), any(), any(), any())).thenReturn(true);
+
+        scheduler.retryFailedEmails();
+
+        verify(emailService).sendSimpleEmail(eq("2@example.com"), anyString(), any());
+        verify(emailService, never()).sendSimpleEmail(eq("1@example.com"), anyString(), any());
+        verify(repository).recordAttempt("2", EmailStatus.ERROR, EmailStatus.SENT, null);
+        assertThat(inFlightTracker.getInFlight()).isZero();
+    }
+
+    private static EmailHistory failedEmail(String id) {
+        return EmailHistory.builder()
+                .id(id)
+                .recipient(id + "@example.com")
+                .subject("Retry " + id)
+                .content("Body")
+                .status(EmailStatus.ERROR)
+                .attempts(1)
+                .build();
+    }
+}
@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import org.kunievakateryna.config.TestElasticsearchConfiguration;
 import org.kunievakateryna.data.EmailHistory;
 import org.kunievakateryna.data.EmailStatus;
+import org.kunievakateryna.data.SuppressionReason;
 import org.kunievakateryna.repository.EmailHistoryRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -32,6 +33,9 @@ class EmailRetrySchedulerTest {
     @Autowired
     private EmailHistoryRepository repository;
 
+    @Autowired
+    private RecipientSuppressionService suppressionService;
+
     @MockBean
     private JavaMailSender mailSender;
 
@@ -101,4 +105,28 @@ class EmailRetrySchedulerTest {
                 .contains("Bad credentials");
         assertThat(updated.getLastAttemptTime()).isNotNull();
     }
+
+    @Test
+    void shouldStopRetrying_whenRecipientSuppressedAfterFirstAttempt() {
+        EmailHistory history = EmailHistory.builder()
+                .id(UUID.randomUUID().toString())
+                .recipient("unsubscribed@example.com")
+                .subject("Retry suppressed")
+                .content("Body")
+                .status(EmailStatus.ERROR)
+                .attempts(1)
+                .createdAt(LocalDateTime.now())
+                .build();
+
+        repository.save(history);
+        suppressionService.suppress("unsubscribed@example.com", SuppressionReason.UNSUBSCRIBED);
+
+        scheduler.retryFailedEmails();
+
+        EmailHistory updated = repository.findById(history.getId()).orElseThrow();
+
+        assertThat(updated.getStatus()).isEqualTo(EmailStatus.SUPPRESSED);
+        assertThat(updated.getAttempts()).isEqualTo(1);
+        verify(mailSender, never()).send(any(SimpleMailMessage.class));
+    }
 }
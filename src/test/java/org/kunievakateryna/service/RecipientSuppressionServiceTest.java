@@ -0,0 +1,91 @@
+package org.kunievakateryna.service;
+
+import jakarta.mail.SendFailedException;
+import jakarta.mail.internet.InternetAddress;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.junit.jupiter.api.Test;
+import org.kunievakateryna.config.TestElasticsearchConfiguration;
+import org.kunievakateryna.data.SuppressionReason;
+import org.kunievakateryna.repository.SuppressedRecipientRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Import(TestElasticsearchConfiguration.class)
+class RecipientSuppressionServiceTest {
+
+    @Autowired
+    private RecipientSuppressionService suppressionService;
+
+    @Autowired
+    private SuppressedRecipientRepository repository;
+
+    @MockBean
+    private JavaMailSender mailSender;
+
+    @Test
+    void shouldConfirmInElasticsearch_whenExactSetCapacityExceeded() {
+        // separate instance, so the shared context keeps its exact set
+        RecipientSuppressionService service = new RecipientSuppressionService(repository);
+        ReflectionTestUtils.setField(service, "expectedEntries", 1000L);
+        ReflectionTestUtils.setField(service, "falsePositiveRate", 0.01);
+        ReflectionTestUtils.setField(service, "exactSetCapacity", 1);
+        service.init();
+
+        service.suppress("capacity-first@example.com", SuppressionReason.HARD_BOUNCE);
+        service.suppress("capacity-second@example.com", SuppressionReason.HARD_BOUNCE);
+        service.suppress("Capacity-Third@Example.com", SuppressionReason.UNSUBSCRIBED);
+
+        assertThat(ReflectionTestUtils.getField(service, "exactSet")).isNull();
+        assertThat(service.isSuppressed("capacity-first@example.com")).isTrue();
+        assertThat(service.isSuppressed("capacity-second@example.com")).isTrue();
+        assertThat(service.isSuppressed("capacity-third@example.com")).isTrue();
+        assertThat(service.isSuppressed("not-suppressed@example.com")).isFalse();
+    }
+
+    @Test
+    void shouldSuppress_whenSmtpServerRejectsRecipientPermanently() throws Exception {
+        boolean suppressed = suppressionService.suppressOnPermanentFailure(
+                "unknown-user@example.com",
+                rejectedRecipient("unknown-user@example.com", 550)
+        );
+
+        assertThat(suppressed).isTrue();
+        assertThat(suppressionService.isSuppressed("unknown-user@example.com")).isTrue();
+    }
+
+    @Test
+    void shouldNotSuppress_whenSmtpFailureIsTemporary() throws Exception {
+        boolean suppressed = suppressionService.suppressOnPermanentFailure(
+                "mailbox-busy@example.com",
+                rejectedRecipient("mailbox-busy@example.com", 450)
+        );
+
+        assertThat(suppressed).isFalse();
+        assertThat(suppressionService.isSuppressed("mailbox-busy@example.com")).isFalse();
+    }
+
+    /**
+     * Builds the exception JavaMailSender throws when the server rejects RCPT TO
+     */
+    private static MailSendException rejectedRecipient(String recipient, int returnCode) throws Exception {
+        SMTPAddressFailedException rejected = new SMTPAddressFailedException(
+                new InternetAddress(recipient),
+                "RCPT TO:<" + recipient + ">",
+                returnCode,
+                returnCode + " recipient rejected"
+        );
+        SendFailedException sendFailure = new SendFailedException("Invalid Addresses", rejected);
+
+        return new MailSendException(Map.of(new Object(), sendFailure));
+    }
+}
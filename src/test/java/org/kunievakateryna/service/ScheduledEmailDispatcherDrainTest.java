@@ -0,0 +1,89 @@
+package org.kunievakateryna.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kunievakateryna.data.EmailHistory;
+import org.kunievakateryna.data.EmailStatus;
+import org.kunievakateryna.lifecycle.InFlightTracker;
+import org.kunievakateryna.repository.EmailHistoryRepository;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ScheduledEmailDispatcherDrainTest {
+
+    private final EmailHistoryRepository repository = mock(EmailHistoryRepository.class);
+    private final EmailService emailService = mock(EmailService.class);
+    private final EmailContentStore contentStore = mock(EmailContentStore.class);
+    private final RecipientSuppressionService suppressionService = mock(RecipientSuppressionService.class);
+    private final InFlightTracker inFlightTracker = new InFlightTracker();
+
+    private final ScheduledEmailDispatcher dispatcher = new ScheduledEmailDispatcher(
+            repository,
+            emailService,
+            contentStore,
+            suppressionService,
+            inFlightTracker
+    );
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(dispatcher, "tickMs", 100L);
+        ReflectionTestUtils.setField(dispatcher, "wheelSize", 512);
+        ReflectionTestUtils.setField(dispatcher, "windowMs", 600_000L);
+        ReflectionTestUtils.setField(dispatcher, "dispatchThreads", 1);
+        ReflectionTestUtils.setField(dispatcher, "dispatchBatchSize", 100);
+        dispatcher.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.close();
+    }
+
+    @Test
+    void shouldStopSendingBatch_whenDrainingStartsDuringDispatch() throws InterruptedException {
+        List<EmailHistory> dueEmails = List.of(overdueEmail("1"), overdueEmail("2"), overdueEmail("3"));
+        when(repository.findByStatusAndSendAtBefore(eq(EmailStatus.SCHEDULED), any()))
+                .thenReturn(dueEmails.stream());
+        when(repository.findAllById(anyIterable())).thenReturn(dueEmails);
+        doAnswer(invocation -> {
+            inFlightTracker.startDraining();
+            return null;
+        }).when(emailService).sendSimpleEmail(anyString(), anyString(), any());
+
+        dispatcher.loadWindow();
+        dispatcher.tick();
+        awaitDispatched();
+
+        verify(emailService, times(1)).sendSimpleEmail(anyString(), anyString(), any());
+        verify(repository).recordAttempt(anyString(), eq(EmailStatus.SCHEDULED), eq(EmailStatus.SENT), isNull());
+        assertThat(inFlightTracker.getInFlight()).isZero();
+    }
+
+    private void awaitDispatched() throws InterruptedException {
+        dispatcher.close();
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(dispatcher, "dispatchExecutor");
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private static EmailHistory overdueEmail(String id) {
+        return EmailHistory.builder()
+                .id(id)
+                .recipient(id + "@example.com")
+                .subject("Scheduled " + id)
+                .content("Body")
+                .status(EmailStatus.SCHEDULED)
+                .attempts(0)
+                .sendAt(LocalDateTime.now().minusMinutes(1))
+                .build();
+    }
+}
@@ -0,0 +1,112 @@
+package org.kunievakateryna.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kunievakateryna.config.TestElasticsearchConfiguration;
+import org.kunievakateryna.data.EmailHistory;
+import org.kunievakateryna.data.EmailStatus;
+import org.kunievakateryna.repository.EmailHistoryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+@Import(TestElasticsearchConfiguration.class)
+class ScheduledEmailDispatcherTest {
+
+    private static final long AWAIT_TIMEOUT_MILLIS = 10_000;
+
+    @Autowired
+    private ScheduledEmailDispatcher dispatcher;
+
+    @Autowired
+    private EmailHistoryRepository repository;
+
+    @MockBean
+    private JavaMailSender mailSender;
+
+    @BeforeEach
+    void clean() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void shouldSendScheduledEmail_whenSendAtIsReached() {
+        EmailHistory history = repository.save(scheduledEmail(LocalDateTime.now().plusSeconds(1)));
+
+        dispatcher.loadWindow();
+
+        EmailHistory sent = awaitStatus(history.getId(), EmailStatus.SENT);
+        assertThat(sent.getAttempts()).isEqualTo(1);
+        assertThat(sent.getLastAttemptTime()).isAfterOrEqualTo(history.getSendAt());
+        verify(mailSender, times(1)).send(any(SimpleMailMessage.class));
+    }
+
+    @Test
+    void shouldSendOverdueScheduledEmail_onNextTick() {
+        EmailHistory history = repository.save(scheduledEmail(LocalDateTime.now().minusMinutes(1)));
+
+        dispatcher.loadWindow();
+
+        awaitStatus(history.getId(), EmailStatus.SENT);
+        verify(mailSender, times(1)).send(any(SimpleMailMessage.class));
+    }
+
+    @Test
+    void shouldKeepEmailScheduled_beforeSendAt() throws InterruptedException {
+        EmailHistory history = repository.save(scheduledEmail(LocalDateTime.now().plusMinutes(5)));
+
+        dispatcher.loadWindow();
+        TimeUnit.SECONDS.sleep(1);
+
+        assertThat(repository.findById(history.getId()).orElseThrow().getStatus()).isEqualTo(EmailStatus.SCHEDULED);
+        verify(mailSender, never()).send(any(SimpleMailMessage.class));
+    }
+
+    private static EmailHistory scheduledEmail(LocalDateTime sendAt) {
+        return EmailHistory.builder()
+                .id(UUID.randomUUID().toString())
+                .recipient("scheduled@example.com")
+                .subject("Scheduled")
+                .content("Body")
+                .status(EmailStatus.SCHEDULED)
+                .attempts(0)
+                .createdAt(LocalDateTime.now())
+                .sendAt(sendAt)
+                .build();
+    }
+
+    /**
+     * Polls the record until it has the expected status, the wheel is advanced by the scheduled tick
+     */
+    private EmailHistory awaitStatus(String id, EmailStatus status) {
+        long deadline = System.currentTimeMillis() + AWAIT_TIMEOUT_MILLIS;
+        EmailHistory history = repository.findById(id).orElseThrow();
+        while (history.getStatus() != status && System.currentTimeMillis() < deadline) {
+            sleep();
+            history = repository.findById(id).orElseThrow();
+        }
+
+        assertThat(history.getStatus()).isEqualTo(status);
+        return history;
+    }
+
+    private static void sleep() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(50);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
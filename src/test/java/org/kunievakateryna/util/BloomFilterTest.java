@@ -0,0 +1,64 @@
+package org.kunievakateryna.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BloomFilterTest {
+
+    @Test
+    void shouldContainEveryAddedValue() {
+        BloomFilter filter = new BloomFilter(100_000, 0.01);
+        for (int i = 0; i < 100_000; i++) {
+            filter.put("user-" + i + "@example.com");
+        }
+
+        for (int i = 0; i < 100_000; i++) {
+            assertThat(filter.mightContain("user-" + i + "@example.com")).isTrue();
+        }
+    }
+
+    @Test
+    void shouldKeepFalsePositiveRateNearConfiguredRate_whenFilledToExpectedEntries() {
+        BloomFilter filter = new BloomFilter(100_000, 0.01);
+        for (int i = 0; i < 100_000; i++) {
+            filter.put("user-" + i + "@example.com");
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("other-" + i + "@example.com")) {
+                falsePositives++;
+            }
+        }
+
+        assertThat(falsePositives / 100_000.0).isBetween(0.005, 0.015);
+    }
+
+    @Test
+    void shouldSizeFilterForExpectedEntriesAndRate() {
+        BloomFilter filter = new BloomFilter(1000, 0.01);
+
+        // optimal size is -n * ln(p) / ln(2)^2 = 9586 bits, rounded up to whole 64-bit words
+        assertThat(filter.bitSize()).isEqualTo(9600);
+        // optimal count is m / n * ln(2) = 6.65
+        assertThat(filter.hashFunctions()).isEqualTo(7);
+    }
+
+    @Test
+    void shouldGrowWithLowerFalsePositiveRate() {
+        BloomFilter onePercent = new BloomFilter(1_000_000, 0.01);
+        BloomFilter oneInThousand = new BloomFilter(1_000_000, 0.001);
+
+        assertThat((double) oneInThousand.bitSize() / onePercent.bitSize()).isBetween(1.45, 1.55);
+        assertThat(oneInThousand.hashFunctions()).isEqualTo(10);
+    }
+
+    @Test
+    void shouldRejectInvalidSizing() {
+        assertThatThrownBy(() -> new BloomFilter(0, 0.01)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new BloomFilter(1000, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new BloomFilter(1000, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,61 @@
+package org.kunievakateryna.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+
+    @Test
+    void shouldExpireItemsWithinOneTickAfterExpiration() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 4, 0);
+
+        wheel.add("first-level", 5);
+        wheel.add("end-of-first-level", 39);
+        wheel.add("second-level", 100);
+        wheel.add("overflow-level", 1000);
+
+        assertThat(advance(wheel, 9)).isEmpty();
+        assertThat(advance(wheel, 10)).containsExactly("first-level");
+        assertThat(advance(wheel, 39)).isEmpty();
+        assertThat(advance(wheel, 40)).containsExactly("end-of-first-level");
+        assertThat(advance(wheel, 109)).isEmpty();
+        assertThat(advance(wheel, 110)).containsExactly("second-level");
+        assertThat(advance(wheel, 1009)).isEmpty();
+        assertThat(advance(wheel, 1010)).containsExactly("overflow-level");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void shouldRejectExpiredItems() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 4, 100);
+
+        boolean added = wheel.add("expired", 99);
+
+        assertThat(added).isFalse();
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void shouldExpireAllItems_whenClockJumpsForward() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(10, 8, 0);
+        for (int i = 0; i < 10_000; i++) {
+            wheel.add(i, i * 7L);
+        }
+
+        List<Integer> expired = advance(wheel, 100_000);
+
+        assertThat(expired).hasSize(10_000);
+        assertThat(expired).isSorted();
+        assertThat(wheel.size()).isZero();
+    }
+
+    private static <T> List<T> advance(TimingWheel<T> wheel, long timeMs) {
+        List<T> expired = new ArrayList<>();
+        wheel.advanceClock(timeMs, expired::add);
+        return expired;
+    }
+}